@@ -17,14 +17,21 @@ DEPENDENCIES=(
   "https://repo1.maven.org/maven2/org/glassfish/jersey/core/jersey-client/2.35/jersey-client-2.35.jar"
   "https://repo1.maven.org/maven2/org/glassfish/jersey/inject/jersey-hk2/2.35/jersey-hk2-2.35.jar"
   "https://repo1.maven.org/maven2/org/glassfish/jersey/media/jersey-media-json-jackson/2.35/jersey-media-json-jackson-2.35.jar"
+  "https://repo1.maven.org/maven2/org/glassfish/jersey/media/jersey-media-sse/2.35/jersey-media-sse-2.35.jar"
   "https://repo1.maven.org/maven2/org/glassfish/jersey/ext/jersey-entity-filtering/2.35/jersey-entity-filtering-2.35.jar"
   "https://repo1.maven.org/maven2/org/glassfish/jersey/media/jersey-media-jaxb/2.35/jersey-media-jaxb-2.35.jar"
   "https://repo1.maven.org/maven2/com/fasterxml/jackson/module/jackson-module-jaxb-annotations/2.12.2/jackson-module-jaxb-annotations-2.12.2.jar"
   "https://repo1.maven.org/maven2/com/fasterxml/jackson/jaxrs/jackson-jaxrs-base/2.12.2/jackson-jaxrs-base-2.12.2.jar"
   "https://repo1.maven.org/maven2/com/fasterxml/jackson/jaxrs/jackson-jaxrs-json-provider/2.12.2/jackson-jaxrs-json-provider-2.12.2.jar"
+  "https://repo1.maven.org/maven2/com/fasterxml/jackson/jaxrs/jackson-jaxrs-smile-provider/2.12.2/jackson-jaxrs-smile-provider-2.12.2.jar"
+  "https://repo1.maven.org/maven2/com/fasterxml/jackson/dataformat/jackson-dataformat-smile/2.12.2/jackson-dataformat-smile-2.12.2.jar"
   "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-http-server/2.4.4/grizzly-http-server-2.4.4.jar"
   "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-http/2.4.4/grizzly-http-2.4.4.jar"
   "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-framework/2.4.4/grizzly-framework-2.4.4.jar"
+  "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-websockets/2.4.4/grizzly-websockets-2.4.4.jar"
+  "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-http2/2.4.4/grizzly-http2-2.4.4.jar"
+  "https://repo1.maven.org/maven2/org/glassfish/grizzly/grizzly-npn-api/1.9/grizzly-npn-api-1.9.jar"
+  "https://repo1.maven.org/maven2/javax/servlet/javax.servlet-api/3.1.0/javax.servlet-api-3.1.0.jar"
   "https://repo1.maven.org/maven2/jakarta/ws/rs/jakarta.ws.rs-api/2.1.6/jakarta.ws.rs-api-2.1.6.jar"
   "https://repo1.maven.org/maven2/javax/ws/rs/javax.ws.rs-api/2.1.1/javax.ws.rs-api-2.1.1.jar"
   "https://repo1.maven.org/maven2/com/fasterxml/jackson/core/jackson-databind/2.12.2/jackson-databind-2.12.2.jar"
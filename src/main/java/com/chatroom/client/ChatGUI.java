@@ -1,11 +1,16 @@
 package com.chatroom.client;
 
 import com.chatroom.model.Message;
+import com.chatroom.model.PresenceDelta;
+import com.chatroom.model.SyncResponse;
 import com.chatroom.model.User;
 import com.chatroom.util.ApiClient;
 import com.chatroom.util.LogManager;
 
+import static com.chatroom.util.Constants.Client.HISTORY_PAGE_SIZE;
+import static com.chatroom.util.Constants.Client.TRANSCRIPT_CAPACITY;
 import static com.chatroom.util.Constants.Colors.*;
+import static com.chatroom.util.Constants.Timing.LONG_POLL_WAIT_MS;
 import static com.chatroom.util.Constants.Timing.POLLING_INTERVAL_MS;
 
 import javax.swing.*;
@@ -17,11 +22,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Interface graphique principale pour le chat, inspirée de WhatsApp.
@@ -38,7 +43,10 @@ import java.util.TimerTask;
  * </ul>
  * 
  * <p>Cette classe gère l'interface utilisateur et utilise ApiClient pour 
- * les communications avec le serveur backend.</p>
+ * les communications avec le serveur backend. Tous les appels sont asynchrones : aucun
+ * appel réseau n'est effectué sur le thread de l'interface (EDT), et leurs résultats y
+ * sont appliqués via {@link EdtMonitor#invokeLater(Runnable)}, qui mesure l'attente de la file
+ * de l'EDT. Les messages reçus sont affichés par lots, au plus une fois par trame.</p>
  * 
  * @author ESP-DIC3
  * @version 1.0
@@ -48,8 +56,7 @@ public class ChatGUI extends JFrame {
     private static final java.util.logging.Logger LOGGER = LogManager.getLogger(ChatGUI.class);
     
    
-    private JPanel chatPanel;
-    private JScrollPane scrollPane;
+    private TranscriptWindow transcript;
     private JTextField messageField;
     private JButton sendButton;
     private JList<String> userList;
@@ -57,9 +64,12 @@ public class ChatGUI extends JFrame {
     
    
     private String username;
-    private long lastMessageTimestamp = 0;
-    private List<Message> displayedMessages = new ArrayList<>();
-    private Timer pollTimer;
+    private volatile long messageCursor = 0;
+    private volatile long presenceVersion = -1;
+    // Dernier envoi en cours : les envois suivants sont chaînés pour conserver leur ordre (EDT uniquement)
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+    private volatile CompletableFuture<SyncResponse> pendingSync;
+    private volatile boolean polling;
     
     /**
      * Constructeur de l'interface graphique
@@ -70,7 +80,8 @@ public class ChatGUI extends JFrame {
         setTitle("WhatsApp Chat Group -ESP-DIC3");
         setSize(800, 600);
         setMinimumSize(new Dimension(600, 400));
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // La fermeture quitte l'application une fois le dernier signal de vie envoyé
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setLocationRelativeTo(null);
         
         initUI();
@@ -79,13 +90,12 @@ public class ChatGUI extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                dispose();
                 if (username != null) {
-                    try {
-                        LOGGER.info("Déconnexion de l'utilisateur: " + username);
-                        unregisterUser();
-                    } catch (Exception ex) {
-                        LOGGER.warning("Erreur lors de la déconnexion: " + ex.getMessage());
-                    }
+                    LOGGER.info("Déconnexion de l'utilisateur: " + username);
+                    unregisterUser().whenComplete((ignored, ex) -> System.exit(0));
+                } else {
+                    System.exit(0);
                 }
             }
         });
@@ -112,16 +122,11 @@ public class ChatGUI extends JFrame {
         JScrollPane userScrollPane = new JScrollPane(userList);
         userScrollPane.setBorder(new EmptyBorder(5, 5, 5, 5));
         
-        chatPanel = new JPanel();
-        chatPanel.setLayout(new BoxLayout(chatPanel, BoxLayout.Y_AXIS));
-        chatPanel.setBackground(WHATSAPP_BACKGROUND);
-        
-        scrollPane = new JScrollPane(chatPanel);
-        scrollPane.setBorder(null);
-        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        // Fil de discussion virtualisé et borné : l'historique plus ancien est relu au défilement
+        transcript = new TranscriptWindow(TRANSCRIPT_CAPACITY, HISTORY_PAGE_SIZE);
         
         splitPane.setLeftComponent(userScrollPane);
-        splitPane.setRightComponent(scrollPane);
+        splitPane.setRightComponent(transcript.getComponent());
         
         JPanel inputPanel = createInputPanel();
         
@@ -298,15 +303,18 @@ public class ChatGUI extends JFrame {
             public void actionPerformed(ActionEvent e) {
                 String username = usernameField.getText().trim();
                 if (!username.isEmpty()) {
-                    try {
-                        registerUser(username);
-                        loginDialog.dispose();
-                    } catch (IOException ex) {
-                        JOptionPane.showMessageDialog(loginDialog, 
-                            ex.getMessage(), 
-                            "Erreur de connexion", 
-                            JOptionPane.ERROR_MESSAGE);
-                    }
+                    connectButton.setEnabled(false);
+                    registerUser(username).whenComplete((ignored, ex) -> EdtMonitor.invokeLater(() -> {
+                        if (ex == null) {
+                            loginDialog.dispose();
+                        } else {
+                            connectButton.setEnabled(true);
+                            JOptionPane.showMessageDialog(loginDialog, 
+                                cause(ex).getMessage(), 
+                                "Erreur de connexion", 
+                                JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
                 } else {
                     JOptionPane.showMessageDialog(loginDialog, 
                         "Veuillez entrer un nom d'utilisateur valide.", 
@@ -329,212 +337,190 @@ public class ChatGUI extends JFrame {
      * Enregistre l'utilisateur auprès du serveur via l'API REST.
      * <p>
      * Cette méthode effectue une requête HTTP POST vers l'endpoint d'inscription
-     * du serveur REST. Elle gère les différents codes de réponse possibles et
-     * les erreurs qui peuvent survenir lors de la connexion.
+     * du serveur REST, sans bloquer le thread appelant. En cas de succès, le titre de la
+     * fenêtre est mis à jour sur l'EDT et la synchronisation démarre.
      * </p>
      * 
      * @param username Le nom d'utilisateur à enregistrer
-     * @throws IOException Si une erreur de communication avec le serveur se produit
+     * @return Complété à l'inscription, ou en échec (nom déjà utilisé, erreur de communication)
      */
-    private void registerUser(String username) throws IOException {
-        try {
-            // Utiliser ApiClient pour enregistrer l'utilisateur
-            ApiClient.registerUser(username);
-            
-            this.username = username;
-            setTitle("WhatsApp Chat Group-ESP-DIC3 - " + username);
-            
-           
-            startPolling();
-        } catch (IOException e) {
-            LOGGER.warning("Erreur lors de l'inscription: " + e.getMessage());
-            throw e;
-        }
+    private CompletableFuture<User> registerUser(String username) {
+        return ApiClient.registerUserAsync(username).whenComplete((user, e) -> {
+            if (e != null) {
+                LOGGER.warning("Erreur lors de l'inscription: " + cause(e).getMessage());
+                return;
+            }
+            EdtMonitor.invokeLater(() -> {
+                this.username = username;
+                transcript.setCurrentUser(username);
+                setTitle("WhatsApp Chat Group-ESP-DIC3 - " + username);
+                
+                startPolling();
+            });
+        });
     }
     
     /**
-     * Désinscrit l'utilisateur du serveur
+     * Désinscrit l'utilisateur du serveur : arrête la synchronisation en cours et envoie
+     * un dernier signal de vie
+     * 
+     * @return Complété à la réception de la réponse, même en cas d'erreur
      */
-    private void unregisterUser() {
-        try {
-         
-            if (username != null) {
-                ApiClient.sendHeartbeat(username); // Dernier signal avant désinscription
-            }
-            
-            if (pollTimer != null) {
-                pollTimer.cancel();
-            }
-        } catch (Exception e) {
-            LOGGER.warning("Erreur lors de la désinscription: " + e.getMessage());
+    private CompletableFuture<Void> unregisterUser() {
+        polling = false;
+        CompletableFuture<SyncResponse> sync = pendingSync;
+        if (sync != null) {
+            sync.cancel(true);
         }
+        
+        return ApiClient.sendHeartbeatAsync(username).exceptionally(e -> {
+            LOGGER.warning("Erreur lors de la désinscription: " + cause(e).getMessage());
+            return null;
+        });
     }
     
     /**
      * Envoie un message au serveur via l'API REST.
      * <p>
-     * Cette méthode récupère le texte saisi par l'utilisateur, effectue une requête HTTP POST
-     * vers l'endpoint des messages du serveur, et traite la réponse. En cas de succès, le message
-     * est affiché dans l'interface. En cas d'échec, un message d'erreur est affiché.
+     * Cette méthode récupère le texte saisi par l'utilisateur et envoie une requête HTTP POST
+     * vers l'endpoint des messages du serveur sans bloquer l'EDT ; chaque envoi part après
+     * la réponse du précédent, pour conserver leur ordre. Le fil revient au dernier message
+     * s'il affichait l'historique. En cas de succès, le message est affiché dans l'interface,
+     * sauf si la synchronisation l'a déjà affiché. En cas d'échec, un message d'erreur est
+     * affiché et le texte est rendu au champ de saisie s'il est vide.
      * </p>
      */
     private void sendMessage() {
         String content = messageField.getText().trim();
         if (!content.isEmpty()) {
-            try {
-               
-                Message message = ApiClient.sendMessage(username, content);
-                
-               
-                addMessage(message.getSender(), message.getContent(), message.getSender().equals(username));
-                
-               
-                displayedMessages.add(message);
-                
-              
-                lastMessageTimestamp = Math.max(lastMessageTimestamp, message.getTimestamp());
+            messageField.setText("");
+            transcript.showLatest();
+            
+            CompletableFuture<Message> send = lastSend
+                    .handle((ignored, e) -> null)
+                    .thenCompose(ignored -> ApiClient.sendMessageAsync(username, content));
+            lastSend = send;
+            send.whenComplete((message, e) -> EdtMonitor.invokeLater(() -> {
+                if (e != null) {
+                    if (messageField.getText().isEmpty()) {
+                        messageField.setText(content);
+                    }
+                    JOptionPane.showMessageDialog(this, 
+                        "Erreur d'envoi: " + cause(e).getMessage(), 
+                        "Erreur", 
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
                 
-              
-                messageField.setText("");
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Erreur d'envoi: " + e.getMessage(), 
-                    "Erreur", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                transcript.deliver(Collections.singletonList(message));
+            }));
         }
     }
     
     /**
-     * Démarre le polling pour les nouveaux messages et utilisateurs
+     * Démarre la synchronisation avec le serveur
      */
     private void startPolling() {
-        LOGGER.info("Démarrage du polling pour l'utilisateur: " + username);
-        pollTimer = new Timer(true);
-        pollTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    pollMessages();
-                    pollUsers();
-                    sendHeartbeat();
-                } catch (Exception e) {
-                    LOGGER.warning("Erreur de polling: " + e.getMessage());
-                }
-            }
-        }, 0, POLLING_INTERVAL_MS); // Polling toutes les secondes
+        LOGGER.info("Démarrage de la synchronisation pour l'utilisateur: " + username);
+        polling = true;
+        
+        synchronize(LONG_POLL_WAIT_MS);
     }
     
     /**
-     * Récupère les nouveaux messages du serveur via l'API REST.
+     * Synchronise le client avec le serveur via l'API REST.
      * <p>
-     * Cette méthode est appelée périodiquement pour interroger le serveur et récupérer
-     * les nouveaux messages depuis le dernier timestamp connu. Elle utilise le paramètre
-     * de requête 'since' pour ne récupérer que les messages récents, optimisant ainsi
-     * les performances. Les nouveaux messages sont ensuite affichés dans l'interface
-     * s'ils n'ont pas déjà été affichés précédemment.
+     * Une seule requête <code>POST /chat/sync</code> remplace les appels séparés de
+     * récupération des messages, de la liste des utilisateurs et de signal de vie. Le
+     * serveur ne répond qu'à l'arrivée d'un message qui suit le curseur, à un changement
+     * de présence ou à l'expiration du délai d'attente ; la requête en attente n'occupe
+     * aucun thread. Chaque réponse relance la synchronisation, immédiatement pour les
+     * pages suivantes éventuelles ; après une erreur, elle reprend après
+     * {@link com.chatroom.util.Constants.Timing#POLLING_INTERVAL_MS}. Les messages reçus sont
+     * déposés dans le fil, qui les affiche par lots au plus une fois par trame ; ceux déjà
+     * affichés (envoyés par ce client) sont ignorés. Un curseur qui recule
+     * signale un serveur redémarré sans son historique, et le fil est alors vidé.
      * </p>
      * 
-     * @throws IOException Si une erreur de communication avec le serveur se produit
+     * @param waitMillis Délai d'attente maximum côté serveur (0 pour une réponse immédiate)
      */
-    private void pollMessages() throws IOException {
-        try {
-          
-            List<Message> messages = ApiClient.getMessages(lastMessageTimestamp);
-            
-            SwingUtilities.invokeLater(() -> {
-                for (Message message : messages) {
-                    
-                    if (!isMessageDisplayed(message)) {
-                       
-                        addMessage(message.getSender(), message.getContent(), 
-                                   message.getSender().equals(username));
-                        
-                       
-                        displayedMessages.add(message);
-                        lastMessageTimestamp = Math.max(lastMessageTimestamp, message.getTimestamp());
-                    }
-                }
-            });
-        } catch (Exception e) {
-            LOGGER.warning("Erreur lors du polling des messages: " + e.getMessage());
+    private void synchronize(long waitMillis) {
+        if (!polling) {
+            return;
         }
-    }
-    
-    /**
-     * Vérifie si un message a déjà été affiché
-     */
-    private boolean isMessageDisplayed(Message message) {
-        for (Message displayed : displayedMessages) {
-            if (displayed.getTimestamp() == message.getTimestamp() && 
-                displayed.getSender().equals(message.getSender()) && 
-                displayed.getContent().equals(message.getContent())) {
-                return true;
+        
+        CompletableFuture<SyncResponse> sync = ApiClient.syncAsync(username, messageCursor, presenceVersion, waitMillis);
+        pendingSync = sync;
+        sync.whenComplete((state, e) -> {
+            if (!polling) {
+                return;
             }
-        }
-        return false;
+            if (e != null) {
+                LOGGER.warning("Erreur lors de la synchronisation: " + cause(e).getMessage());
+                CompletableFuture.delayedExecutor(POLLING_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                        .execute(() -> synchronize(LONG_POLL_WAIT_MS));
+                return;
+            }
+            
+            boolean restarted = state.getCursor() < messageCursor;
+            messageCursor = state.getCursor();
+            
+            List<Message> messages = state.getMessages();
+            if (restarted) {
+                transcript.clear();
+            }
+            if (!messages.isEmpty()) {
+                transcript.post(messages);
+            }
+            
+            PresenceDelta presence = state.getPresence();
+            if (presence != null) {
+                presenceVersion = presence.getVersion();
+                showUsers(presence);
+            }
+            
+            synchronize(state.isHasMore() ? 0 : LONG_POLL_WAIT_MS);
+        });
     }
     
     /**
-     * Récupère la liste des utilisateurs connectés du serveur via l'API REST.
+     * Applique un changement de présence à la liste des utilisateurs affichée.
      * <p>
-     * Cette méthode est appelée périodiquement pour mettre à jour la liste des utilisateurs
-     * connectés dans l'interface graphique. Elle effectue une requête HTTP GET vers l'endpoint
-     * des utilisateurs et met à jour la liste d'affichage avec les données reçues.
+     * Seuls les utilisateurs arrivés ou partis sont ajoutés ou retirés ; la liste n'est
+     * reconstruite que si le serveur renvoie une liste complète.
      * </p>
      * 
-     * @throws IOException Si une erreur de communication avec le serveur se produit
+     * @param presence Les arrivées et départs renvoyés par le serveur
      */
-    private void pollUsers() throws IOException {
-        try {
-            // Récupérer la liste des utilisateurs connectés
-            List<User> users = ApiClient.getUsers();
-            
-            SwingUtilities.invokeLater(() -> {
-              
+    private void showUsers(PresenceDelta presence) {
+        EdtMonitor.invokeLater(() -> {
+            if (presence.isFull()) {
                 userListModel.clear();
-                
-             
-                for (User user : users) {
+            }
+            
+            for (String removed : presence.getRemoved()) {
+                userListModel.removeElement(removed);
+            }
+            
+            for (User user : presence.getAdded()) {
+                if (!userListModel.contains(user.getUsername())) {
                     userListModel.addElement(user.getUsername());
                 }
-                
-                
-                if (!userListModel.contains(username) && username != null) {
-                    userListModel.addElement(username);
-                }
-            });
-        } catch (Exception e) {
-            LOGGER.warning("Erreur lors du polling des utilisateurs: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * Envoie un signal de vie au serveur pour maintenir la session active
-     */
-    private void sendHeartbeat() throws IOException {
-        try {
-            ApiClient.sendHeartbeat(username);
-        } catch (Exception e) {
-            LOGGER.warning("Erreur lors de l'envoi du heartbeat: " + e.getMessage());
-        }
+            }
+            
+            
+            if (!userListModel.contains(username) && username != null) {
+                userListModel.addElement(username);
+            }
+        });
     }
     
     /**
-     * Ajoute un message à l'interface
+     * @param e L'erreur d'un appel asynchrone
+     * @return Sa cause, sans l'enveloppe {@link CompletionException}
      */
-    private void addMessage(String sender, String content, boolean isCurrentUser) {
-        MessageBubble messageBubble = new MessageBubble(sender, content, isCurrentUser);
-        
-        chatPanel.add(messageBubble);
-        chatPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        
-        chatPanel.revalidate();
-        
-        SwingUtilities.invokeLater(() -> {
-            JScrollBar vertical = scrollPane.getVerticalScrollBar();
-            vertical.setValue(vertical.getMaximum());
-        });
+    static Throwable cause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
     
     /**
@@ -543,6 +529,7 @@ public class ChatGUI extends JFrame {
     public static void main(String[] args) {
        
         LogManager.configureLogging();
+        EdtMonitor.start();
         
         try {
          
@@ -0,0 +1,98 @@
+package com.chatroom.client;
+
+import com.chatroom.util.LogManager;
+
+import static com.chatroom.util.Constants.Client.EDT_PROBE_INTERVAL_MS;
+import static com.chatroom.util.Constants.Client.EDT_REPORT_INTERVAL_MS;
+import static com.chatroom.util.Constants.Client.EDT_SLOW_MS;
+
+import javax.swing.*;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mesure l'attente des tâches dans la file de l'EDT : le temps entre leur dépôt
+ * ({@link #invokeLater(Runnable)}) et le début de leur exécution. Une attente élevée signifie
+ * que l'interface ne répond plus aux actions de l'utilisateur.
+ * <p>
+ * Une sonde dépose une tâche vide toutes les
+ * {@link com.chatroom.util.Constants.Client#EDT_PROBE_INTERVAL_MS} millisecondes, pour
+ * mesurer l'attente même sans activité réseau. Toutes les
+ * {@link com.chatroom.util.Constants.Client#EDT_REPORT_INTERVAL_MS} millisecondes, le nombre
+ * de tâches, l'attente moyenne et l'attente maximale sont journalisés : en
+ * <code>INFO</code> si l'attente maximale dépasse
+ * {@link com.chatroom.util.Constants.Client#EDT_SLOW_MS}, en <code>FINE</code> sinon.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public final class EdtMonitor {
+    private static final Logger LOGGER = LogManager.getLogger(EdtMonitor.class);
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+    
+    // Mesures de la période en cours (EDT uniquement)
+    private static int taskCount;
+    private static long totalNanos;
+    private static long maxNanos;
+    private static long periodStart = System.nanoTime();
+    
+    // Empêcher l'instanciation
+    private EdtMonitor() {}
+    
+    /**
+     * Démarre la sonde de la file d'attente (sans effet si elle est déjà démarrée)
+     */
+    public static void start() {
+        if (EDT_PROBE_INTERVAL_MS <= 0 || !STARTED.compareAndSet(false, true)) {
+            return;
+        }
+        
+        Timer probe = new Timer("edt-monitor", true);
+        probe.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                invokeLater(() -> {});
+            }
+        }, EDT_PROBE_INTERVAL_MS, EDT_PROBE_INTERVAL_MS);
+    }
+    
+    /**
+     * Exécute une tâche sur l'EDT, comme {@link SwingUtilities#invokeLater(Runnable)}, en
+     * mesurant son attente dans la file
+     * 
+     * @param task La tâche à exécuter
+     */
+    public static void invokeLater(Runnable task) {
+        long queued = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            record(System.nanoTime() - queued);
+            task.run();
+        });
+    }
+    
+    private static void record(long latencyNanos) {
+        taskCount++;
+        totalNanos += latencyNanos;
+        maxNanos = Math.max(maxNanos, latencyNanos);
+        
+        long now = System.nanoTime();
+        if (now - periodStart < TimeUnit.MILLISECONDS.toNanos(EDT_REPORT_INTERVAL_MS)) {
+            return;
+        }
+        Level level = maxNanos >= TimeUnit.MILLISECONDS.toNanos(EDT_SLOW_MS) ? Level.INFO : Level.FINE;
+        if (LOGGER.isLoggable(level)) {
+            LOGGER.log(level, String.format("File d'attente de l'EDT : %d tâche(s) en %.1f s, attente moyenne %.2f ms, maximale %.2f ms",
+                    taskCount, (now - periodStart) / 1e9,
+                    totalNanos / 1e6 / taskCount, maxNanos / 1e6));
+        }
+        taskCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        periodStart = now;
+    }
+}
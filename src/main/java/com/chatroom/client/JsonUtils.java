@@ -1,5 +1,6 @@
 package com.chatroom.client;
 
+import com.chatroom.model.ChatJsonModule;
 import com.chatroom.model.Message;
 import com.chatroom.model.User;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -13,7 +14,7 @@ import java.util.List;
  * Utilitaire pour la conversion JSON
  */
 public class JsonUtils {
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new ChatJsonModule());
 
     /**
      * Convertit une chaîne JSON en liste de messages
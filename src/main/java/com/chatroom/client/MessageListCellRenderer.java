@@ -0,0 +1,191 @@
+package com.chatroom.client;
+
+import com.chatroom.model.Message;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renderer du fil de discussion : dessine chaque message sous forme de bulle style WhatsApp.
+ * <p>
+ * Les messages de l'utilisateur actuel sont affichés à droite avec un fond vert clair,
+ * ceux des autres utilisateurs à gauche avec un fond gris, précédés du nom de l'expéditeur.
+ * Chaque bulle affiche le contenu du message, coupé aux mots, et son horodatage.
+ * </p>
+ * <p>
+ * Un seul composant sert à dessiner toutes les lignes de la {@link JList}, et aucun
+ * composant n'est créé par message : la bulle est dessinée directement, sans
+ * sous-composants, et sa hauteur est calculée à partir des métriques des polices.
+ * Associé à {@link MessageListUI}, qui conserve les hauteurs mesurées, chaque message
+ * n'est mesuré qu'une fois et seules les lignes visibles sont dessinées.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessageListCellRenderer extends JComponent implements ListCellRenderer<Message> {
+    private static final int ARC_SIZE = 15;
+    private static final int MAX_BUBBLE_WIDTH = 400;
+    private static final int MIN_TEXT_WIDTH = 40;
+    // Espace autour de la bulle, puis entre la bulle et son texte
+    private static final Insets MARGIN = new Insets(5, 10, 5, 10);
+    private static final Insets PADDING = new Insets(8, 12, 8, 12);
+    private static final Color WHATSAPP_LIGHT_GREEN = new Color(220, 248, 198);
+    private static final Color WHATSAPP_GREY = new Color(160, 160, 160);
+    private static final Color SENDER_NAME_COLOR = new Color(0, 92, 75);
+    private static final Color TIME_COLOR = new Color(120, 120, 120);
+    private static final Font SENDER_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font CONTENT_FONT = new Font("Arial", Font.PLAIN, 14);
+    private static final Font TIME_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm")
+            .withZone(ZoneId.systemDefault());
+    
+    private final FontMetrics senderMetrics = getFontMetrics(SENDER_FONT);
+    private final FontMetrics contentMetrics = getFontMetrics(CONTENT_FONT);
+    private final FontMetrics timeMetrics = getFontMetrics(TIME_FONT);
+    
+    private String currentUser;
+    private Message message;
+    private boolean isCurrentUser;
+    private int height;
+    
+    /**
+     * Définit l'utilisateur dont les messages sont affichés à droite, sans nom d'expéditeur.
+     * À appeler avant l'ajout des premiers messages.
+     * 
+     * @param username Nom de l'utilisateur connecté
+     */
+    public void setCurrentUser(String username) {
+        this.currentUser = username;
+    }
+    
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Message> list, Message value,
+            int index, boolean isSelected, boolean cellHasFocus) {
+        message = value;
+        isCurrentUser = value.getSender().equals(currentUser);
+        
+        int width = list.getWidth() > 0 ? list.getWidth() : MAX_BUBBLE_WIDTH + MARGIN.left + MARGIN.right;
+        height = measure(width);
+        return this;
+    }
+    
+    @Override
+    public Dimension getPreferredSize() {
+        // Largeur minimale : la liste suit la largeur de la zone de défilement
+        return new Dimension(MARGIN.left + MARGIN.right, height);
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        
+        String time = TIME_FORMAT.format(Instant.ofEpochMilli(message.getTimestamp()));
+        List<String> lines = wrap(message.getContent(), contentMetrics, maxTextWidth(getWidth()));
+        int textWidth = timeMetrics.stringWidth(time);
+        if (!isCurrentUser) {
+            textWidth = Math.max(textWidth, senderMetrics.stringWidth(message.getSender()));
+        }
+        for (String line : lines) {
+            textWidth = Math.max(textWidth, contentMetrics.stringWidth(line));
+        }
+        
+        int bubbleWidth = textWidth + PADDING.left + PADDING.right;
+        int x = isCurrentUser ? getWidth() - MARGIN.right - bubbleWidth : MARGIN.left;
+        g2.setColor(isCurrentUser ? WHATSAPP_LIGHT_GREEN : WHATSAPP_GREY);
+        g2.fillRoundRect(x, MARGIN.top, bubbleWidth, getHeight() - MARGIN.top - MARGIN.bottom, ARC_SIZE, ARC_SIZE);
+        
+        int textX = x + PADDING.left;
+        int y = MARGIN.top + PADDING.top;
+        if (!isCurrentUser) {
+            g2.setFont(SENDER_FONT);
+            g2.setColor(SENDER_NAME_COLOR);
+            g2.drawString(message.getSender(), textX, y + senderMetrics.getAscent());
+            y += senderMetrics.getHeight();
+        }
+        
+        g2.setFont(CONTENT_FONT);
+        g2.setColor(Color.BLACK);
+        for (String line : lines) {
+            g2.drawString(line, textX, y + contentMetrics.getAscent());
+            y += contentMetrics.getHeight();
+        }
+        
+        g2.setFont(TIME_FONT);
+        g2.setColor(TIME_COLOR);
+        g2.drawString(time, textX + textWidth - timeMetrics.stringWidth(time), y + timeMetrics.getAscent());
+        g2.dispose();
+    }
+    
+    /**
+     * @param listWidth Largeur de la liste
+     * @return La hauteur de la ligne du message courant
+     */
+    private int measure(int listWidth) {
+        int lines = wrap(message.getContent(), contentMetrics, maxTextWidth(listWidth)).size();
+        return MARGIN.top + PADDING.top
+                + (isCurrentUser ? 0 : senderMetrics.getHeight())
+                + lines * contentMetrics.getHeight()
+                + timeMetrics.getHeight()
+                + PADDING.bottom + MARGIN.bottom;
+    }
+    
+    private static int maxTextWidth(int listWidth) {
+        int bubbleWidth = Math.min(MAX_BUBBLE_WIDTH, listWidth - MARGIN.left - MARGIN.right);
+        return Math.max(MIN_TEXT_WIDTH, bubbleWidth - PADDING.left - PADDING.right);
+    }
+    
+    /**
+     * Coupe un texte en lignes d'au plus width pixels, aux espaces si possible, et à chaque
+     * retour à la ligne
+     * 
+     * @param text Le texte à couper
+     * @param metrics La police du texte
+     * @param width Largeur maximale d'une ligne
+     * @return Les lignes, sans les espaces de coupure
+     */
+    static List<String> wrap(String text, FontMetrics metrics, int width) {
+        List<String> lines = new ArrayList<>();
+        for (String paragraph : text.split("\r?\n", -1)) {
+            int start = 0;
+            while (true) {
+                int lineWidth = 0;
+                int lastSpace = -1;
+                int end = start;
+                while (end < paragraph.length()) {
+                    int codePoint = paragraph.codePointAt(end);
+                    lineWidth += metrics.charWidth(codePoint);
+                    if (lineWidth > width && end > start) {
+                        if (codePoint == ' ') {
+                            lastSpace = end;
+                        }
+                        break;
+                    }
+                    if (codePoint == ' ') {
+                        lastSpace = end;
+                    }
+                    end += Character.charCount(codePoint);
+                }
+                
+                if (end >= paragraph.length()) {
+                    lines.add(paragraph.substring(start));
+                    break;
+                } else if (lastSpace > start) {
+                    lines.add(paragraph.substring(start, lastSpace));
+                    start = lastSpace + 1;
+                } else {
+                    lines.add(paragraph.substring(start, end));
+                    start = end;
+                }
+            }
+        }
+        return lines;
+    }
+}
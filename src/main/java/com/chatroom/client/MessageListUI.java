@@ -0,0 +1,262 @@
+package com.chatroom.client;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.plaf.basic.BasicListUI;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+
+/**
+ * Interface de liste virtualisée pour le fil de discussion.
+ * <p>
+ * {@link BasicListUI} mesure à nouveau toutes les lignes à chaque modification du modèle,
+ * et parcourt les hauteurs de toutes les lignes précédentes pour situer une ligne : afficher
+ * un message coûte un temps proportionnel au nombre de messages déjà affichés. Cette
+ * interface conserve la hauteur de chaque ligne et leurs positions cumulées, mises à jour
+ * à partir de la première ligne modifiée : un ajout en fin de liste ne mesure que les
+ * nouveaux messages, une ligne est située par recherche dichotomique, et seules les lignes
+ * visibles sont dessinées.
+ * </p>
+ * <p>
+ * Toutes les lignes ne sont mesurées à nouveau que lorsque la largeur de la liste change,
+ * puisque la coupure des messages en dépend. Seule la disposition verticale
+ * ({@link JList#VERTICAL}, sans hauteur de ligne fixe) est prise en charge.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessageListUI extends BasicListUI {
+    private static final int UNKNOWN = -1;
+    
+    // Hauteur de chaque ligne, et position du haut de chaque ligne (tops[rowCount] : hauteur totale)
+    private int[] heights = new int[0];
+    private int[] tops = new int[1];
+    private int rowCount;
+    // Première ligne dont la position doit être recalculée
+    private int dirtyFrom;
+    private int layoutWidth = UNKNOWN;
+    
+    private ListModel<?> model;
+    
+    private final ListDataListener dataListener = new ListDataListener() {
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            int count = e.getIndex1() - e.getIndex0() + 1;
+            ensureCapacity(rowCount + count);
+            System.arraycopy(heights, e.getIndex0(), heights, e.getIndex0() + count, rowCount - e.getIndex0());
+            Arrays.fill(heights, e.getIndex0(), e.getIndex1() + 1, UNKNOWN);
+            rowCount += count;
+            dirtyFrom = Math.min(dirtyFrom, e.getIndex0());
+        }
+        
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            int count = e.getIndex1() - e.getIndex0() + 1;
+            System.arraycopy(heights, e.getIndex1() + 1, heights, e.getIndex0(), rowCount - e.getIndex1() - 1);
+            rowCount -= count;
+            dirtyFrom = Math.min(dirtyFrom, e.getIndex0());
+        }
+        
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            if (e.getIndex0() < 0) {
+                resetRows();
+                return;
+            }
+            Arrays.fill(heights, e.getIndex0(), Math.min(e.getIndex1() + 1, rowCount), UNKNOWN);
+            dirtyFrom = Math.min(dirtyFrom, e.getIndex0());
+        }
+    };
+    
+    private final ComponentListener resizeListener = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            // La hauteur des lignes dépend de la largeur : la liste doit être remise en page
+            if (list.getWidth() != layoutWidth) {
+                list.revalidate();
+                list.repaint();
+            }
+        }
+    };
+    
+    private final PropertyChangeListener propertyListener = e -> {
+        if ("model".equals(e.getPropertyName())) {
+            listenTo(list.getModel());
+        }
+        resetRows();
+    };
+    
+    @Override
+    public void installUI(JComponent c) {
+        super.installUI(c);
+        listenTo(list.getModel());
+        resetRows();
+        list.addComponentListener(resizeListener);
+        list.addPropertyChangeListener("model", propertyListener);
+        list.addPropertyChangeListener("cellRenderer", propertyListener);
+        list.addPropertyChangeListener("font", propertyListener);
+    }
+    
+    @Override
+    public void uninstallUI(JComponent c) {
+        list.removePropertyChangeListener("model", propertyListener);
+        list.removePropertyChangeListener("cellRenderer", propertyListener);
+        list.removePropertyChangeListener("font", propertyListener);
+        list.removeComponentListener(resizeListener);
+        listenTo(null);
+        super.uninstallUI(c);
+    }
+    
+    /**
+     * Mesure les lignes inconnues et recalcule les positions à partir de la première ligne
+     * modifiée ; toutes les lignes sont mesurées si la largeur de la liste a changé
+     */
+    @Override
+    protected void updateLayoutState() {
+        int width = list.getWidth();
+        if (width != layoutWidth) {
+            Arrays.fill(heights, 0, rowCount, UNKNOWN);
+            dirtyFrom = 0;
+            layoutWidth = width;
+        }
+        
+        ListModel<Object> dataModel = list.getModel();
+        ListCellRenderer<Object> renderer = list.getCellRenderer();
+        for (int row = dirtyFrom; row < rowCount; row++) {
+            if (heights[row] == UNKNOWN) {
+                Component c = renderer.getListCellRendererComponent(list, dataModel.getElementAt(row), row, false, false);
+                rendererPane.add(c);
+                heights[row] = c.getPreferredSize().height;
+            }
+            tops[row + 1] = tops[row] + heights[row];
+        }
+        dirtyFrom = rowCount;
+        
+        // État lu par les actions clavier de BasicListUI
+        cellHeight = -1;
+        cellHeights = heights;
+        cellWidth = width;
+    }
+    
+    @Override
+    public Dimension getPreferredSize(JComponent c) {
+        ensureLayout();
+        Insets insets = list.getInsets();
+        // Largeur minimale : la liste suit la largeur de la zone de défilement
+        return new Dimension(insets.left + insets.right, insets.top + insets.bottom + tops[rowCount]);
+    }
+    
+    @Override
+    public int locationToIndex(JList<?> list, Point location) {
+        ensureLayout();
+        return rowCount == 0 ? -1 : rowAt(location.y - list.getInsets().top);
+    }
+    
+    @Override
+    public Point indexToLocation(JList<?> list, int index) {
+        ensureLayout();
+        if (index < 0 || index >= rowCount) {
+            return null;
+        }
+        Insets insets = list.getInsets();
+        return new Point(insets.left, insets.top + tops[index]);
+    }
+    
+    @Override
+    public Rectangle getCellBounds(JList<?> list, int index1, int index2) {
+        ensureLayout();
+        int first = Math.min(index1, index2);
+        int last = Math.max(index1, index2);
+        if (first < 0 || last >= rowCount) {
+            return null;
+        }
+        Insets insets = list.getInsets();
+        return new Rectangle(insets.left, insets.top + tops[first],
+                list.getWidth() - insets.left - insets.right, tops[last + 1] - tops[first]);
+    }
+    
+    /**
+     * Dessine uniquement les lignes qui coupent la zone à redessiner
+     */
+    @Override
+    public void paint(Graphics g, JComponent c) {
+        ensureLayout();
+        if (rowCount == 0) {
+            return;
+        }
+        
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, list.getWidth(), list.getHeight());
+        }
+        int top = list.getInsets().top;
+        int first = rowAt(clip.y - top);
+        int last = rowAt(clip.y + clip.height - 1 - top);
+        
+        ListCellRenderer<Object> renderer = list.getCellRenderer();
+        ListModel<Object> dataModel = list.getModel();
+        ListSelectionModel selectionModel = list.getSelectionModel();
+        int leadIndex = list.getLeadSelectionIndex();
+        for (int row = first; row <= last; row++) {
+            paintCell(g, row, getCellBounds(list, row, row), renderer, dataModel, selectionModel, leadIndex);
+        }
+        rendererPane.removeAll();
+    }
+    
+    private void ensureLayout() {
+        if (updateLayoutStateNeeded != 0 || dirtyFrom < rowCount || list.getWidth() != layoutWidth) {
+            updateLayoutState();
+            updateLayoutStateNeeded = 0;
+        }
+    }
+    
+    /**
+     * @param y Ordonnée depuis le haut de la première ligne
+     * @return La ligne qui contient y, ou la plus proche
+     */
+    private int rowAt(int y) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (tops[middle] <= y) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+    
+    private void listenTo(ListModel<?> newModel) {
+        if (model != null) {
+            model.removeListDataListener(dataListener);
+        }
+        model = newModel;
+        if (model != null) {
+            model.addListDataListener(dataListener);
+        }
+    }
+    
+    private void resetRows() {
+        rowCount = list.getModel().getSize();
+        heights = new int[rowCount];
+        tops = new int[rowCount + 1];
+        Arrays.fill(heights, UNKNOWN);
+        dirtyFrom = 0;
+    }
+    
+    private void ensureCapacity(int rows) {
+        if (heights.length < rows) {
+            int capacity = Math.max(rows, heights.length * 2);
+            heights = Arrays.copyOf(heights, capacity);
+            tops = Arrays.copyOf(tops, capacity + 1);
+        }
+    }
+}
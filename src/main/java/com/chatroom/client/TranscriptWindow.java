@@ -0,0 +1,473 @@
+package com.chatroom.client;
+
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.util.ApiClient;
+import com.chatroom.util.LogManager;
+
+import static com.chatroom.util.Constants.Client.FRAME_MS;
+import static com.chatroom.util.Constants.Colors.WHATSAPP_BACKGROUND;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Fil de discussion borné : une fenêtre d'au plus <code>capacity</code> messages
+ * consécutifs de l'historique, affichée par une {@link JList} virtualisée
+ * ({@link MessageListUI}, {@link MessageListCellRenderer}).
+ * <p>
+ * Tant que le fil se termine par le dernier message reçu, les messages reçus (synchronisation,
+ * réponse à un envoi) y sont ajoutés et les plus anciens en sont retirés au-delà de la
+ * capacité. Le fil reste trié par séquence. Un index d'un bit par séquence ({@link BitSet})
+ * indique les messages présents : un message déjà affiché est reconnu en temps constant,
+ * sans parcourir le fil.
+ * </p>
+ * <p>
+ * En haut du fil, la page précédente est relue auprès du serveur et insérée sans déplacer la
+ * zone affichée ; les messages les plus récents sont alors retirés au-delà de la capacité et
+ * le fil ne suit plus les nouveaux messages. Ils sont relus page par page en redescendant,
+ * ou d'un coup lors d'un envoi ({@link #showLatest()}).
+ * </p>
+ * <p>
+ * Les messages reçus par les threads réseau sont déposés par {@link #post(List)} dans une
+ * file, vidée sur l'EDT au plus une fois par trame
+ * ({@link com.chatroom.util.Constants.Client#FRAME_MS}) : une rafale de messages donne une
+ * seule mise à jour du modèle, une seule mise en page et un seul défilement, au lieu d'une
+ * tâche par réponse. Les autres méthodes sont à appeler depuis l'EDT.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class TranscriptWindow {
+    private static final Logger LOGGER = LogManager.getLogger(TranscriptWindow.class);
+    
+    private final int capacity;
+    private final int pageSize;
+    private final DefaultListModel<Message> model = new DefaultListModel<>();
+    private final MessageListCellRenderer renderer = new MessageListCellRenderer();
+    private final JList<Message> list;
+    private final JScrollPane scrollPane;
+    
+    // Messages reçus par les threads réseau, affichés à la prochaine trame
+    private final ConcurrentLinkedQueue<Message> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean clearPending;
+    private volatile long lastFlushNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(FRAME_MS);
+    
+    // Un bit par séquence présente dans le fil, le bit 0 correspondant à shownBase (au plus
+    // la première séquence du fil) : l'index reste de la taille du fil, quelle que soit la séquence
+    private BitSet shown = new BitSet();
+    private long shownBase;
+    // Plus grande séquence reçue, affichée ou non
+    private long latestSequence;
+    // Le fil se termine par le dernier message reçu : les nouveaux messages y sont ajoutés
+    private boolean following = true;
+    // Relire les pages suivantes jusqu'au dernier message, sans attendre le défilement
+    private boolean catchingUp;
+    // Aucun message ne précède cette séquence sur le serveur
+    private long oldestAvailable = 1;
+    // Page en cours de chargement : une seule à la fois
+    private CompletableFuture<?> loading;
+    
+    /**
+     * @param capacity Nombre maximum de messages conservés dans le fil
+     * @param pageSize Nombre de messages relus par requête lors du défilement
+     */
+    public TranscriptWindow(int capacity, int pageSize) {
+        this.capacity = capacity;
+        this.pageSize = pageSize;
+        
+        list = new JList<Message>(model) {
+            @Override
+            public void updateUI() {
+                setUI(new MessageListUI());
+            }
+        };
+        list.setCellRenderer(renderer);
+        list.setBackground(WHATSAPP_BACKGROUND);
+        list.setFocusable(false);
+        
+        scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        scrollPane.getViewport().setBackground(WHATSAPP_BACKGROUND);
+        scrollPane.getViewport().addChangeListener(e -> loadAtEdge());
+    }
+    
+    /**
+     * @return Le composant à placer dans la fenêtre
+     */
+    public JComponent getComponent() {
+        return scrollPane;
+    }
+    
+    /**
+     * @param username Nom de l'utilisateur connecté, dont les messages sont affichés à droite
+     */
+    public void setCurrentUser(String username) {
+        renderer.setCurrentUser(username);
+    }
+    
+    /**
+     * Dépose des messages reçus, depuis n'importe quel thread : ils sont ajoutés au fil à la
+     * prochaine trame, avec tous ceux reçus entre-temps
+     * 
+     * @param messages Les messages reçus, dans l'ordre des séquences
+     */
+    public void post(List<Message> messages) {
+        incoming.addAll(messages);
+        scheduleFlush();
+    }
+    
+    /**
+     * Vide le fil à la prochaine trame, depuis n'importe quel thread (par exemple après le
+     * redémarrage du serveur sans son historique) ; les messages déposés avant sont abandonnés
+     */
+    public void clear() {
+        incoming.clear();
+        clearPending = true;
+        scheduleFlush();
+    }
+    
+    /**
+     * Ajoute des messages reçus au fil s'il suit les nouveaux messages, puis fait défiler
+     * jusqu'au dernier, en une seule mise à jour du modèle. Les messages déjà présents sont
+     * ignorés. À appeler depuis l'EDT.
+     * 
+     * @param messages Les messages reçus, dans l'ordre des séquences
+     */
+    public void deliver(List<Message> messages) {
+        List<Message> appended = new ArrayList<>(messages.size());
+        long last = model.isEmpty() ? 0 : model.lastElement().getSequence();
+        boolean changed = false;
+        for (Message message : messages) {
+            long sequence = message.getSequence();
+            latestSequence = Math.max(latestSequence, sequence);
+            if (!following || isShown(sequence)) {
+                continue;
+            }
+            
+            markShown(sequence);
+            changed = true;
+            if (sequence > last) {
+                appended.add(message);
+                last = sequence;
+            } else {
+                // Message reçu après un message plus récent (réponse à un envoi)
+                model.addAll(appended);
+                appended.clear();
+                model.add(insertionIndex(sequence), message);
+            }
+        }
+        
+        if (changed) {
+            // Une rafale plus longue que le fil : seuls les derniers messages y entrent, sans être mesurés avant
+            int overflow = appended.size() - capacity;
+            if (overflow > 0) {
+                for (Message message : appended.subList(0, overflow)) {
+                    unmarkShown(message.getSequence());
+                }
+                appended = appended.subList(overflow, appended.size());
+            }
+            model.addAll(appended);
+            trimFront();
+            list.ensureIndexIsVisible(model.getSize() - 1);
+        }
+    }
+    
+    /**
+     * Fait revenir le fil au dernier message reçu s'il ne le suit plus : les pages manquantes
+     * sont relues, ou le fil repart de la dernière page s'il en manque trop
+     */
+    public void showLatest() {
+        if (following || catchingUp) {
+            return;
+        }
+        
+        catchingUp = true;
+        cancelLoading();
+        long last = model.isEmpty() ? 0 : model.lastElement().getSequence();
+        if (latestSequence - last > capacity) {
+            shown.clear();
+            model.clear();
+        }
+        loadNewer();
+    }
+    
+    /**
+     * Programme l'affichage des messages déposés, au plus tôt une trame après le précédent
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        
+        long delay = lastFlushNanos + TimeUnit.MILLISECONDS.toNanos(FRAME_MS) - System.nanoTime();
+        if (delay <= 0) {
+            EdtMonitor.invokeLater(this::flush);
+        } else {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS)
+                    .execute(() -> EdtMonitor.invokeLater(this::flush));
+        }
+    }
+    
+    /**
+     * Affiche d'un coup tous les messages déposés depuis la trame précédente
+     */
+    private void flush() {
+        // Un message déposé à partir d'ici programme la trame suivante
+        flushScheduled.set(false);
+        lastFlushNanos = System.nanoTime();
+        
+        if (clearPending) {
+            clearPending = false;
+            reset();
+        }
+        List<Message> batch = new ArrayList<>();
+        for (Message message = incoming.poll(); message != null; message = incoming.poll()) {
+            batch.add(message);
+        }
+        deliver(batch);
+    }
+    
+    private void reset() {
+        cancelLoading();
+        shown.clear();
+        model.clear();
+        latestSequence = 0;
+        following = true;
+        catchingUp = false;
+        oldestAvailable = 1;
+    }
+    
+    /**
+     * Charge la page précédente en haut du fil, ou la suivante en bas du fil s'il ne suit
+     * plus les nouveaux messages
+     */
+    private void loadAtEdge() {
+        if (loading != null || model.isEmpty()) {
+            return;
+        }
+        
+        Rectangle visible = list.getVisibleRect();
+        if (visible.height == 0) {
+            return;
+        }
+        if (visible.y <= 0 && model.firstElement().getSequence() > oldestAvailable) {
+            loadOlder();
+        } else if (!following && visible.y + visible.height >= list.getHeight()) {
+            loadNewer();
+        }
+    }
+    
+    /**
+     * Relit la page qui précède le premier message du fil et l'insère en haut, sans déplacer
+     * les messages affichés
+     */
+    private void loadOlder() {
+        long before = model.firstElement().getSequence();
+        CompletableFuture<List<Message>> request = ApiClient.getMessagesBeforeAsync(before, pageSize);
+        loading = request;
+        request.whenComplete((older, e) -> EdtMonitor.invokeLater(() -> {
+            if (loading != request) {
+                return;
+            }
+            loading = null;
+            if (e != null) {
+                LOGGER.warning("Erreur lors du chargement de l'historique: " + ChatGUI.cause(e).getMessage());
+                return;
+            }
+            // Le début du fil a été retiré entre-temps
+            if (model.isEmpty() || model.firstElement().getSequence() != before) {
+                return;
+            }
+            if (older.isEmpty()) {
+                oldestAvailable = before;
+                return;
+            }
+            
+            for (Message message : older) {
+                markShown(message.getSequence());
+            }
+            model.addAll(0, older);
+            scrollBy(list.getCellBounds(0, older.size() - 1).height);
+            trimBack();
+        }));
+    }
+    
+    /**
+     * Relit la page qui suit le dernier message du fil et l'ajoute en bas ; le fil suit à
+     * nouveau les nouveaux messages une fois le dernier message reçu atteint
+     */
+    private void loadNewer() {
+        long after = model.isEmpty()
+                ? Math.max(oldestAvailable - 1, latestSequence - pageSize)
+                : model.lastElement().getSequence();
+        CompletableFuture<MessagePage> request = ApiClient.getMessagePageAsync(after, pageSize);
+        loading = request;
+        request.whenComplete((page, e) -> EdtMonitor.invokeLater(() -> {
+            if (loading != request) {
+                return;
+            }
+            loading = null;
+            if (e != null) {
+                LOGGER.warning("Erreur lors du chargement de l'historique: " + ChatGUI.cause(e).getMessage());
+                catchingUp = false;
+                return;
+            }
+            
+            List<Message> newer = page.getMessages();
+            for (Message message : newer) {
+                markShown(message.getSequence());
+            }
+            model.addAll(newer);
+            long last = model.isEmpty() ? after : model.lastElement().getSequence();
+            following = last >= latestSequence || newer.isEmpty() && !page.isHasMore();
+            
+            if (catchingUp) {
+                trimFront();
+                if (following) {
+                    catchingUp = false;
+                    list.ensureIndexIsVisible(model.getSize() - 1);
+                } else {
+                    loadNewer();
+                }
+            } else {
+                scrollBy(-trimFront());
+            }
+        }));
+    }
+    
+    /**
+     * Retire les messages les plus anciens au-delà de la capacité
+     * 
+     * @return La hauteur des lignes retirées
+     */
+    private int trimFront() {
+        int excess = model.getSize() - capacity;
+        if (excess <= 0) {
+            return 0;
+        }
+        
+        int height = list.getCellBounds(0, excess - 1).height;
+        forget(0, excess - 1);
+        model.removeRange(0, excess - 1);
+        if (!model.isEmpty()) {
+            rebase(model.firstElement().getSequence());
+        }
+        return height;
+    }
+    
+    /**
+     * Retire les messages les plus récents au-delà de la capacité : le fil ne suit plus les
+     * nouveaux messages
+     */
+    private void trimBack() {
+        int excess = model.getSize() - capacity;
+        if (excess <= 0) {
+            return;
+        }
+        
+        forget(capacity, model.getSize() - 1);
+        model.removeRange(capacity, model.getSize() - 1);
+        following = false;
+    }
+    
+    private void forget(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i <= toIndex; i++) {
+            unmarkShown(model.get(i).getSequence());
+        }
+    }
+    
+    /**
+     * Déplace la zone affichée pour compenser des lignes ajoutées ou retirées au-dessus
+     * 
+     * @param dy Hauteur ajoutée (positive) ou retirée (négative) au-dessus de la zone affichée
+     */
+    private void scrollBy(int dy) {
+        if (dy == 0) {
+            return;
+        }
+        
+        JViewport viewport = scrollPane.getViewport();
+        Point position = viewport.getViewPosition();
+        // La liste doit avoir sa nouvelle hauteur avant de déplacer la zone affichée
+        scrollPane.validate();
+        int maxY = Math.max(0, list.getHeight() - viewport.getExtentSize().height);
+        viewport.setViewPosition(new Point(position.x, Math.max(0, Math.min(maxY, position.y + dy))));
+    }
+    
+    /**
+     * @return La position à laquelle insérer un message pour garder le fil trié par séquence
+     */
+    private int insertionIndex(long sequence) {
+        int index = model.getSize();
+        while (index > 0 && model.get(index - 1).getSequence() > sequence) {
+            index--;
+        }
+        return index;
+    }
+    
+    private void cancelLoading() {
+        if (loading != null) {
+            loading.cancel(true);
+            loading = null;
+        }
+    }
+    
+    /**
+     * @return Vrai si le message de cette séquence est dans le fil
+     */
+    private boolean isShown(long sequence) {
+        return sequence >= shownBase && sequence - shownBase <= Integer.MAX_VALUE && shown.get(index(sequence));
+    }
+    
+    private void markShown(long sequence) {
+        if (shown.isEmpty()) {
+            shownBase = sequence;
+        } else if (sequence < shownBase) {
+            rebase(sequence);
+        }
+        shown.set(index(sequence));
+    }
+    
+    private void unmarkShown(long sequence) {
+        if (isShown(sequence)) {
+            shown.clear(index(sequence));
+        }
+    }
+    
+    /**
+     * Fait correspondre le bit 0 de l'index à une nouvelle séquence : les bits qui précèdent
+     * le début du fil sont libérés quand il avance, et décalés quand des messages plus
+     * anciens y sont ajoutés
+     */
+    private void rebase(long base) {
+        if (base > shownBase) {
+            int from = (int) Math.min(base - shownBase, shown.length());
+            shown = shown.get(from, Math.max(from, shown.length()));
+        } else if (base < shownBase) {
+            int offset = Math.toIntExact(shownBase - base);
+            BitSet moved = new BitSet(shown.length() + offset);
+            shown.stream().forEach(i -> moved.set(i + offset));
+            shown = moved;
+        }
+        shownBase = base;
+    }
+    
+    /**
+     * Les séquences du serveur sont contiguës : l'écart avec le début du fil est borné par
+     * sa capacité, un écart hors des entiers signale une incohérence
+     */
+    private int index(long sequence) {
+        return Math.toIntExact(sequence - shownBase);
+    }
+}
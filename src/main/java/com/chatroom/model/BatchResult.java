@@ -0,0 +1,76 @@
+package com.chatroom.model;
+
+/**
+ * Résultat d'un élément d'un envoi de messages par lot (<code>POST /chat/messages/batch</code>).
+ * <p>
+ * <code>status</code> reprend le code HTTP qu'aurait renvoyé l'envoi individuel du même
+ * message : 201 avec le message ajouté (et sa séquence), 400 ou 404 avec un message d'erreur.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class BatchResult {
+    private int status;
+    private Message message;
+    private String error;
+
+    public BatchResult() {
+    }
+
+    public BatchResult(int status, Message message, String error) {
+        this.status = status;
+        this.message = message;
+        this.error = error;
+    }
+
+    /**
+     * @param message Le message ajouté
+     * @return Un résultat en succès
+     */
+    public static BatchResult created(Message message) {
+        return new BatchResult(201, message, null);
+    }
+
+    /**
+     * @param status Le code HTTP de l'erreur
+     * @param error La description de l'erreur
+     * @return Un résultat en échec
+     */
+    public static BatchResult failed(int status, String error) {
+        return new BatchResult(status, null, error);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "status=" + status +
+                ", message=" + message +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,184 @@
+package com.chatroom.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Module Jackson qui (dé)sérialise {@link Message} et {@link User} sans introspection.
+ * <p>
+ * Ce sont les objets les plus échangés : les sérialiseurs écrivent les champs directement,
+ * avec des noms pré-encodés, dans le même ordre que la sérialisation par défaut (le JSON
+ * produit est identique). Les désérialiseurs lisent les jetons un à un et ignorent les
+ * champs inconnus. Comme la désérialisation par défaut, ils refusent un objet ou un
+ * tableau à la place d'une valeur simple. Le module fonctionne avec tout format Jackson
+ * (JSON, Smile).
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatJsonModule extends SimpleModule {
+    private static final SerializableString SENDER = new SerializedString("sender");
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString SEQUENCE = new SerializedString("sequence");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString LAST_ACTIVE = new SerializedString("lastActive");
+
+    public ChatJsonModule() {
+        super("ChatJsonModule");
+        addSerializer(Message.class, new MessageSerializer());
+        addDeserializer(Message.class, new MessageDeserializer());
+        addSerializer(User.class, new UserSerializer());
+        addDeserializer(User.class, new UserDeserializer());
+    }
+
+    private static final class MessageSerializer extends StdSerializer<Message> {
+        MessageSerializer() {
+            super(Message.class);
+        }
+
+        @Override
+        public void serialize(Message message, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(message);
+            generator.writeFieldName(SENDER);
+            generator.writeString(message.getSender());
+            generator.writeFieldName(CONTENT);
+            generator.writeString(message.getContent());
+            generator.writeFieldName(TIMESTAMP);
+            generator.writeNumber(message.getTimestamp());
+            generator.writeFieldName(SEQUENCE);
+            generator.writeNumber(message.getSequence());
+            generator.writeEndObject();
+        }
+    }
+
+    private static final class MessageDeserializer extends StdDeserializer<Message> {
+        MessageDeserializer() {
+            super(Message.class);
+        }
+
+        @Override
+        public Message deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = startObject(parser, context, Message.class);
+            Message message = new Message();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "sender":
+                        message.setSender(readString(parser, context));
+                        break;
+                    case "content":
+                        message.setContent(readString(parser, context));
+                        break;
+                    case "timestamp":
+                        message.setTimestamp(readLong(parser, context));
+                        break;
+                    case "sequence":
+                        message.setSequence(readLong(parser, context));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return message;
+        }
+    }
+
+    private static final class UserSerializer extends StdSerializer<User> {
+        UserSerializer() {
+            super(User.class);
+        }
+
+        @Override
+        public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(user);
+            generator.writeFieldName(USERNAME);
+            generator.writeString(user.getUsername());
+            generator.writeFieldName(LAST_ACTIVE);
+            generator.writeNumber(user.getLastActive());
+            generator.writeEndObject();
+        }
+    }
+
+    private static final class UserDeserializer extends StdDeserializer<User> {
+        UserDeserializer() {
+            super(User.class);
+        }
+
+        @Override
+        public User deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = startObject(parser, context, User.class);
+            User user = new User();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "username":
+                        user.setUsername(readString(parser, context));
+                        break;
+                    case "lastActive":
+                        user.setLastActive(readLong(parser, context));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return user;
+        }
+    }
+
+    /**
+     * Se place sur le premier champ de l'objet courant
+     * @return Le premier jeton du contenu de l'objet (nom de champ ou fin d'objet)
+     */
+    private static JsonToken startObject(JsonParser parser, DeserializationContext context, Class<?> type) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            context.handleUnexpectedToken(type, parser);
+        }
+        return token;
+    }
+
+    /**
+     * Lit la valeur courante comme une chaîne ; un objet ou un tableau est refusé
+     */
+    private static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        return (String) context.handleUnexpectedToken(String.class, parser);
+    }
+
+    /**
+     * Lit la valeur courante comme un entier long (0 pour null) ; un objet ou un tableau est refusé
+     */
+    private static long readLong(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token.isScalarValue()) {
+            return parser.getValueAsLong();
+        }
+        return ((Number) context.handleUnexpectedToken(Long.TYPE, parser)).longValue();
+    }
+}
@@ -0,0 +1,37 @@
+package com.chatroom.model;
+
+/**
+ * Observateur des changements d'état de la chatroom.
+ * <p>
+ * Les écouteurs sont enregistrés auprès du {@link ChatManager} et notifiés après chaque
+ * ajout de message et après chaque arrivée ou départ d'un utilisateur, sur le thread
+ * à l'origine du changement. Une implémentation doit donc
+ * rester rapide et déléguer tout travail coûteux (écriture réseau, sérialisation) à
+ * un autre thread.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public interface ChatListener {
+
+    /**
+     * Appelé après l'ajout d'un message (utilisateur ou système) au journal
+     * @param message Le message ajouté, avec sa séquence
+     */
+    void onMessage(Message message);
+
+    /**
+     * Appelé après l'inscription d'un utilisateur
+     * @param user L'utilisateur qui a rejoint la chatroom
+     */
+    default void onUserJoined(User user) {
+    }
+
+    /**
+     * Appelé après le départ (ou l'expiration) d'un utilisateur
+     * @param user L'utilisateur qui a quitté la chatroom
+     */
+    default void onUserLeft(User user) {
+    }
+}
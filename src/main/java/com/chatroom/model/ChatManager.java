@@ -1,10 +1,22 @@
 package com.chatroom.model;
 
+import com.chatroom.util.Constants;
+import com.chatroom.util.LogManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
@@ -17,7 +29,16 @@ import java.util.stream.Collectors;
  * </p>
  * <p>
  * Pour assurer la sécurité thread et la concurrence, toutes les collections utilisées
- * sont thread-safe (ConcurrentHashMap, CopyOnWriteArrayList).
+ * sont thread-safe ({@link PresenceLog}, {@link MessageLog}). Les messages sont stockés
+ * dans un journal segmenté en ajout seul, ce qui rend les ajouts O(1) amortis et les
+ * lectures « depuis » logarithmiques. L'historique est borné par la politique de
+ * rétention définie dans {@link Constants.Retention}.
+ * </p>
+ * <p>
+ * En mode durable ({@link #enableJournal(Path)}), chaque message est aussi écrit dans un
+ * {@link MessageJournal} sur disque. Un {@link ChatSnapshot} est écrit périodiquement et
+ * le journal est compacté derrière lui : au démarrage, seul l'instantané et la fin du
+ * journal sont relus.
  * </p>
  *
  * @author ESP-DIC3
@@ -25,9 +46,21 @@ import java.util.stream.Collectors;
  */
 public class ChatManager {
     private static final ChatManager instance = new ChatManager();
+    private static final Logger LOGGER = LogManager.getLogger(ChatManager.class);
+    // Expéditeur des messages système, réservé
+    private static final String SYSTEM_SENDER = "System";
    
-    private final Map<String, User> users = new ConcurrentHashMap<>();
-    private final List<Message> messages = new CopyOnWriteArrayList<>();
+    private final PresenceLog presence = new PresenceLog(Constants.Server.PRESENCE_LOG_SIZE);
+    private final MessageLog messages = new MessageLog(new RetentionPolicy(
+            Constants.Retention.MAX_MESSAGES,
+            Constants.Retention.MAX_AGE_MS,
+            Constants.Retention.MAX_BYTES));
+    private final RateLimiter rateLimiter = new RateLimiter(
+            Constants.Limits.MESSAGES_PER_SECOND,
+            Constants.Limits.MESSAGE_BURST);
+    private final List<ChatListener> listeners = new CopyOnWriteArrayList<>();
+    private MessageJournal journal;
+    private Path snapshotFile;
     
     // Singleton
     private ChatManager() {}
@@ -36,21 +69,107 @@ public class ChatManager {
         return instance;
     }
     
+    /**
+     * Active le mode durable : charge l'instantané présent dans le dossier de données,
+     * rejoue la fin du journal, puis écrit chaque nouveau message dans le journal.
+     * @param dataDir Le dossier de données (créé s'il n'existe pas)
+     * @return Le nombre de messages restaurés (instantané et journal)
+     * @throws IOException Si l'instantané ou le journal ne peuvent pas être relus
+     */
+    public synchronized long enableJournal(Path dataDir) throws IOException {
+        if (journal != null) {
+            return 0;
+        }
+        Files.createDirectories(dataDir);
+        snapshotFile = dataDir.resolve(Constants.Persistence.SNAPSHOT_FILE);
+        
+        long start = System.nanoTime();
+        long restored = 0;
+        ChatSnapshot snapshot = ChatSnapshot.read(snapshotFile);
+        if (snapshot != null) {
+            for (User user : snapshot.getUsers()) {
+                presence.restore(user);
+            }
+            snapshot.getMessages().forEach(messages::restore);
+            messages.skipTo(snapshot.getLastSequence() + 1);
+            restored = snapshot.getMessages().size();
+            LOGGER.info("Instantané chargé: " + snapshot.getUsers().size() + " utilisateur(s), "
+                    + restored + " message(s) jusqu'à la séquence " + snapshot.getLastSequence()
+                    + " en " + elapsedMillis(start) + " ms");
+        }
+        
+        long replayStart = System.nanoTime();
+        MessageJournal opened = new MessageJournal(dataDir.resolve(Constants.Persistence.JOURNAL_FILE),
+                Constants.Persistence.JOURNAL_REGION_BYTES,
+                Constants.Persistence.FSYNC_INTERVAL_MS);
+        long before = messages.getLastSequence();
+        opened.replay(messages::restore);
+        long replayed = messages.getLastSequence() - before;
+        messages.setJournal(opened);
+        journal = opened;
+        LOGGER.info(replayed + " message(s) rejoué(s) depuis " + opened.getFile()
+                + " en " + elapsedMillis(replayStart) + " ms");
+        return restored + replayed;
+    }
+    
+    /**
+     * Écrit un instantané de l'état (utilisateurs et messages retenus) puis compacte le
+     * journal derrière lui. Sans effet hors mode durable.
+     * @throws IOException En cas d'erreur d'écriture de l'instantané ou du journal
+     */
+    public synchronized void writeSnapshot() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Message> window = new ArrayList<>();
+        long lastSequence = messages.capture(window);
+        ChatSnapshot snapshot = new ChatSnapshot(lastSequence, getAllUsers(), window);
+        snapshot.write(snapshotFile);
+        messages.compactJournal(lastSequence);
+        LOGGER.info("Instantané écrit (" + window.size() + " message(s), séquence " + lastSequence
+                + ") en " + elapsedMillis(start) + " ms");
+    }
+    
+    /**
+     * Écrit un dernier instantané, puis synchronise et ferme le journal durable, s'il est actif
+     */
+    public synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors de l'écriture de l'instantané final", e);
+        }
+        messages.setJournal(null);
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors de la fermeture du journal", e);
+        }
+        journal = null;
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    
     /**
      * Ajoute un utilisateur à la chatroom
      * @param username Le nom d'utilisateur
      * @return L'utilisateur créé, ou null si le nom existe déjà
      */
     public User addUser(String username) {
-        if (users.containsKey(username)) {
+        User user = presence.join(username);
+        if (user == null) {
             return null; // Utilisateur déjà existant
         }
         
-        User user = new User(username);
-        users.put(username, user);
-        
        
         addSystemMessage(username + " a rejoint la chatroom");
+        notifyListeners(listener -> listener.onUserJoined(user));
         
         return user;
     }
@@ -61,7 +180,7 @@ public class ChatManager {
      * @return true si l'utilisateur existe, false sinon
      */
     public boolean userExists(String username) {
-        User user = users.get(username);
+        User user = presence.get(username);
         if (user != null) {
             user.updateActivity();
             return true;
@@ -69,18 +188,57 @@ public class ChatManager {
         return false;
     }
     
+    /**
+     * Vérifie qu'un utilisateur précis est toujours connecté (et non remplacé par un
+     * homonyme) et met à jour son activité
+     * @param user L'utilisateur renvoyé par {@link #addUser(String)}
+     * @return true si c'est toujours l'utilisateur enregistré sous son nom, false sinon
+     */
+    public boolean userExists(User user) {
+        if (presence.get(user.getUsername()) != user) {
+            return false;
+        }
+        user.updateActivity();
+        return true;
+    }
+    
     /**
      * Supprime un utilisateur de la chatroom
      * @param username Le nom d'utilisateur à supprimer
      */
     public void removeUser(String username) {
-        User user = users.remove(username);
+        User user = presence.leave(username);
         if (user != null) {
-          
-            addSystemMessage(username + " a quitté la chatroom");
+            userLeft(user);
+        }
+    }
+    
+    /**
+     * Supprime un utilisateur précis de la chatroom ; sans effet s'il est déjà parti ou si
+     * son nom a été repris depuis
+     * @param user L'utilisateur renvoyé par {@link #addUser(String)}
+     */
+    public void removeUser(User user) {
+        if (presence.leave(user)) {
+            userLeft(user);
         }
     }
     
+    private void userLeft(User user) {
+        rateLimiter.remove(user.getUsername());
+        addSystemMessage(user.getUsername() + " a quitté la chatroom");
+        notifyListeners(listener -> listener.onUserLeft(user));
+    }
+    
+    /**
+     * Le limiteur de débit des messages, par expéditeur, à consulter avant
+     * {@link #addMessage(String, String)} ou {@link #addMessages(List)}
+     * @return Le limiteur de débit
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
     /**
      * Ajoute un message à la chatroom
      * @param sender L'expéditeur du message
@@ -92,18 +250,140 @@ public class ChatManager {
             return null;
         }
         
-        Message message = new Message(sender, content);
-        messages.add(message);
+        Message message = messages.append(new Message(sender, content));
+        notifyMessage(message);
         return message;
     }
     
+    /**
+     * Ajoute un message d'un utilisateur précis à la chatroom
+     * @param sender L'utilisateur renvoyé par {@link #addUser(String)}
+     * @param content Le contenu du message
+     * @return Le message créé, ou null si cet utilisateur est parti ou a été remplacé
+     */
+    public Message addMessage(User sender, String content) {
+        if (!userExists(sender)) {
+            return null;
+        }
+        
+        Message message = messages.append(new Message(sender.getUsername(), content));
+        notifyMessage(message);
+        return message;
+    }
+    
+    /**
+     * Ajoute un lot de messages à la chatroom. Chaque expéditeur distinct n'est vérifié
+     * qu'une fois, puis les messages acceptés sont ajoutés d'un bloc avec des séquences
+     * contiguës ; les écouteurs sont notifiés une fois, avec le dernier message du lot.
+     * @param batch Les messages à ajouter (expéditeur et contenu renseignés)
+     * @return Pour chaque message du lot, dans l'ordre, le message ajouté ou null si son
+     *         expéditeur n'existe pas
+     */
+    public List<Message> addMessages(List<Message> batch) {
+        Map<String, Boolean> knownSenders = new HashMap<>();
+        List<Message> accepted = new ArrayList<>(batch.size());
+        List<Message> results = new ArrayList<>(batch.size());
+        for (Message message : batch) {
+            if (knownSenders.computeIfAbsent(message.getSender(), this::userExists)) {
+                accepted.add(message);
+                results.add(message);
+            } else {
+                results.add(null);
+            }
+        }
+        
+        if (!accepted.isEmpty()) {
+            messages.appendAll(accepted);
+            notifyMessage(accepted.get(accepted.size() - 1));
+        }
+        return results;
+    }
+    
     /**
      * Ajoute un message système à la chatroom
      * @param content Le contenu du message système
      */
     public void addSystemMessage(String content) {
-        Message message = new Message("System", content);
-        messages.add(message);
+        notifyMessage(messages.append(new Message(SYSTEM_SENDER, content)));
+    }
+    
+    /**
+     * Importe en bloc des messages d'historique, dans l'ordre de la source.
+     * <p>
+     * Les messages importés ne sont pas intercalés dans l'historique : chacun reçoit une
+     * nouvelle séquence, après celles des messages déjà présents, et conserve son
+     * expéditeur, son contenu et son horodatage (rendu monotone par le journal, donc jamais
+     * antérieur au dernier message). L'expéditeur doit être un utilisateur connecté ; le nom
+     * réservé aux messages système est refusé. Les écouteurs ne sont notifiés qu'une fois,
+     * avec le dernier message importé : ils rattrapent d'eux-mêmes les séquences intermédiaires.
+     * </p>
+     * @param source Les messages à importer, lus au fur et à mesure
+     * @param maxMessages Nombre maximum de messages acceptés
+     * @return Le nombre de messages importés
+     * @throws IllegalArgumentException Si un message est invalide ou illisible, ou si la source
+     *         dépasse <code>maxMessages</code> ; les messages qui le précèdent restent importés
+     */
+    public long importMessages(Iterator<Message> source, int maxMessages) {
+        long count = 0;
+        Message last = null;
+        try {
+            while (source.hasNext()) {
+                if (count >= maxMessages) {
+                    throw new IllegalArgumentException("Import limité à " + maxMessages + " messages par requête");
+                }
+                Message message = source.next();
+                if (message == null || message.getSender() == null || message.getContent() == null) {
+                    throw new IllegalArgumentException("L'expéditeur et le contenu sont requis");
+                }
+                if (SYSTEM_SENDER.equals(message.getSender()) || presence.get(message.getSender()) == null) {
+                    throw new IllegalArgumentException("Expéditeur inconnu: " + message.getSender());
+                }
+                if (message.getContent().length() > Constants.Limits.MAX_MESSAGE_LENGTH) {
+                    throw new IllegalArgumentException("Le contenu ne doit pas dépasser "
+                            + Constants.Limits.MAX_MESSAGE_LENGTH + " caractères");
+                }
+                last = messages.append(message);
+                count++;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Import interrompu après " + count + " messages: " + e.getMessage(), e);
+        } finally {
+            if (last != null) {
+                notifyMessage(last);
+            }
+        }
+        LOGGER.info(count + " messages importés");
+        return count;
+    }
+    
+    /**
+     * Enregistre un écouteur notifié à chaque nouveau message
+     * @param listener L'écouteur à ajouter
+     */
+    public void addListener(ChatListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Retire un écouteur précédemment enregistré
+     * @param listener L'écouteur à retirer
+     */
+    public void removeListener(ChatListener listener) {
+        listeners.remove(listener);
+    }
+    
+    private void notifyMessage(Message message) {
+        notifyListeners(listener -> listener.onMessage(message));
+    }
+    
+    private void notifyListeners(Consumer<ChatListener> event) {
+        for (ChatListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Erreur dans un écouteur de la chatroom", e);
+            }
+        }
     }
     
     /**
@@ -112,9 +392,78 @@ public class ChatManager {
      * @return La liste des messages depuis le timestamp spécifié
      */
     public List<Message> getMessagesSince(long since) {
-        return messages.stream()
-                .filter(message -> message.getTimestamp() > since)
-                .collect(Collectors.toList());
+        return messages.since(since);
+    }
+    
+    /**
+     * Récupère une page de messages à partir d'un curseur.
+     * <p>
+     * Un curseur plus grand que la dernière séquence connue (client resté connecté à
+     * un serveur redémarré) est considéré comme périmé : la page repart du début.
+     * </p>
+     * @param after Le curseur renvoyé par la page précédente (0 pour tout l'historique)
+     * @param limit Nombre maximum de messages dans la page
+     * @return La page de messages et le curseur à utiliser pour la suite
+     */
+    public MessagePage getMessagesAfter(long after, int limit) {
+        long lastSequence = messages.getLastSequence();
+        if (after > lastSequence) {
+            after = 0;
+        }
+        List<Message> page = messages.after(after, limit);
+        long cursor = page.isEmpty() ? after : page.get(page.size() - 1).getSequence();
+        return new MessagePage(page, cursor, cursor < lastSequence);
+    }
+    
+    /**
+     * Construit la réponse à une synchronisation client : la page de messages qui suit le
+     * curseur et, si la version de présence du client est périmée, les changements de présence.
+     * @param after Le curseur du client
+     * @param knownPresenceVersion La version de présence connue du client (-1 si aucune)
+     * @param limit Nombre maximum de messages dans la page
+     * @return L'état à renvoyer au client
+     */
+    public SyncResponse getSyncState(long after, long knownPresenceVersion, int limit) {
+        MessagePage page = getMessagesAfter(after, limit);
+        PresenceDelta delta = presence.since(knownPresenceVersion);
+        return new SyncResponse(page, delta.isEmpty() ? null : delta);
+    }
+    
+    /**
+     * Récupère les arrivées et départs survenus depuis une version de présence
+     * @param sinceVersion La version connue du client (-1 si aucune)
+     * @return Les changements, ou la liste complète si la version n'est plus dans le journal
+     */
+    public PresenceDelta getPresenceSince(long sinceVersion) {
+        return presence.since(sinceVersion);
+    }
+    
+    /**
+     * @return La version courante de la présence, incrémentée à chaque arrivée ou départ
+     */
+    public long getPresenceVersion() {
+        return presence.getVersion();
+    }
+    
+    /**
+     * @return Le nombre de messages retenus en mémoire
+     */
+    public int getMessageCount() {
+        return messages.size();
+    }
+    
+    /**
+     * @return La séquence du plus ancien message retenu
+     */
+    public long getFirstSequence() {
+        return messages.getFirstSequence();
+    }
+    
+    /**
+     * @return La séquence du dernier message ajouté (0 si aucun message)
+     */
+    public long getLastSequence() {
+        return messages.getLastSequence();
     }
     
     /**
@@ -122,7 +471,23 @@ public class ChatManager {
      * @return La liste de tous les messages
      */
     public List<Message> getAllMessages() {
-        return new ArrayList<>(messages);
+        return messages.all();
+    }
+    
+    /**
+     * Récupère les compteurs de rétention de l'historique des messages
+     * @return Les compteurs (messages retenus, octets estimés, évictions par cause)
+     */
+    public Map<String, Long> getRetentionStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("retainedMessages", (long) messages.size());
+        stats.put("retainedBytes", messages.getRetainedBytes());
+        stats.put("firstSequence", messages.getFirstSequence());
+        stats.put("lastSequence", messages.getLastSequence());
+        stats.put("evictedByCount", messages.getEvictedByCount());
+        stats.put("evictedByAge", messages.getEvictedByAge());
+        stats.put("evictedByBytes", messages.getEvictedByBytes());
+        return stats;
     }
     
     /**
@@ -130,7 +495,7 @@ public class ChatManager {
      * @return La liste des utilisateurs
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        return presence.all();
     }
     
     /**
@@ -140,7 +505,7 @@ public class ChatManager {
      */
     public int cleanInactiveUsers(long maxInactiveTime) {
         long currentTime = System.currentTimeMillis();
-        List<String> inactiveUsers = users.values().stream()
+        List<String> inactiveUsers = presence.all().stream()
                 .filter(user -> (currentTime - user.getLastActive()) > maxInactiveTime)
                 .map(User::getUsername)
                 .collect(Collectors.toList());
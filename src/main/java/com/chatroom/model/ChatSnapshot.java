@@ -0,0 +1,189 @@
+package com.chatroom.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Instantané binaire compact de l'état de la chatroom (utilisateurs et fenêtre de messages retenus).
+ * <p>
+ * Un instantané couvre tous les messages jusqu'à <code>lastSequence</code> inclus : au
+ * redémarrage, seuls les enregistrements du journal postérieurs à cette séquence sont
+ * rejoués. Le fichier est écrit dans un fichier temporaire, synchronisé sur disque puis
+ * renommé atomiquement (dossier synchronisé), si bien qu'un instantané lu est toujours
+ * complet et qu'après un arrêt brutal, il n'est jamais plus ancien que le journal compacté.
+ * </p>
+ *
+ * <p>Format :</p>
+ * <pre>
+ * int magic | int version | long lastSequence
+ * int nbUtilisateurs | (chaîne nom | long lastActive)*
+ * int nbMessages | (long séquence | long timestamp | chaîne expéditeur | chaîne contenu)*
+ * long crc32
+ * </pre>
+ * <p>Une chaîne est codée par sa longueur en octets UTF-8 (-1 pour null) suivie des octets.</p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatSnapshot {
+    private static final int MAGIC = 0x43485331; // "CHS1"
+    private static final int VERSION = 1;
+    // Taille minimale d'un utilisateur (longueur du nom, activité) et d'un message
+    // (séquence, horodatage, longueurs de l'expéditeur et du contenu)
+    private static final int USER_MIN_BYTES = 4 + 8;
+    private static final int MESSAGE_MIN_BYTES = 8 + 8 + 4 + 4;
+
+    private final long lastSequence;
+    private final List<User> users;
+    private final List<Message> messages;
+
+    public ChatSnapshot(long lastSequence, List<User> users, List<Message> messages) {
+        this.lastSequence = lastSequence;
+        this.users = users;
+        this.messages = messages;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Écrit l'instantané de façon atomique
+     * @param file Le fichier de destination
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSequence);
+
+            out.writeInt(users.size());
+            for (User user : users) {
+                writeString(out, user.getUsername());
+                out.writeLong(user.getLastActive());
+            }
+
+            out.writeInt(messages.size());
+            for (Message message : messages) {
+                out.writeLong(message.getSequence());
+                out.writeLong(message.getTimestamp());
+                writeString(out, message.getSender());
+                writeString(out, message.getContent());
+            }
+
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Le renommage doit être durable avant que le journal soit compacté derrière l'instantané
+        DurableFiles.syncDirectory(file);
+    }
+
+    /**
+     * Lit un instantané
+     * @param file Le fichier à lire
+     * @return L'instantané, ou null si le fichier n'existe pas
+     * @throws IOException Si le fichier est illisible ou corrompu
+     */
+    public static ChatSnapshot read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        // Les tailles lues précèdent la vérification du CRC : elles sont bornées par celle du
+        // fichier, pour qu'un instantané corrompu soit signalé comme tel plutôt que d'épuiser la mémoire
+        long size = Files.size(file);
+        try (InputStream fileIn = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fileIn, 64 * 1024), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Format d'instantané inconnu: " + file);
+            }
+            long lastSequence = in.readLong();
+
+            int userCount = checkCount(in.readInt(), size, USER_MIN_BYTES, file);
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                User user = new User(readString(in, size, file));
+                user.setLastActive(in.readLong());
+                users.add(user);
+            }
+
+            int messageCount = checkCount(in.readInt(), size, MESSAGE_MIN_BYTES, file);
+            List<Message> messages = new ArrayList<>(messageCount);
+            for (int i = 0; i < messageCount; i++) {
+                Message message = new Message();
+                message.setSequence(in.readLong());
+                message.setTimestamp(in.readLong());
+                message.setSender(readString(in, size, file));
+                message.setContent(readString(in, size, file));
+                messages.add(message);
+            }
+
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Instantané corrompu (CRC invalide): " + file);
+            }
+            return new ChatSnapshot(lastSequence, users, messages);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Vérifie qu'un nombre d'enregistrements lu peut tenir dans le fichier
+     */
+    private static int checkCount(int count, long fileSize, int recordMinBytes, Path file) throws IOException {
+        if (count < 0 || count > fileSize / recordMinBytes) {
+            throw new IOException("Instantané corrompu (nombre d'enregistrements invalide): " + file);
+        }
+        return count;
+    }
+
+    private static String readString(DataInputStream in, long fileSize, Path file) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > fileSize) {
+            throw new IOException("Instantané corrompu (longueur de chaîne invalide): " + file);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
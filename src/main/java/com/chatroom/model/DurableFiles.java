@@ -0,0 +1,38 @@
+package com.chatroom.model;
+
+import com.chatroom.util.LogManager;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opérations communes aux fichiers du mode durable (instantané et journal).
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+final class DurableFiles {
+    private static final Logger LOGGER = LogManager.getLogger(DurableFiles.class);
+
+    // Empêcher l'instanciation
+    private DurableFiles() {}
+
+    /**
+     * Synchronise le dossier d'un fichier pour rendre durable son renommage : sans cela,
+     * un arrêt brutal peut laisser l'ancienne entrée du dossier. Sans effet sur les
+     * systèmes qui ne permettent pas d'ouvrir un dossier.
+     * @param file Le fichier renommé
+     */
+    static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Synchronisation du dossier " + directory + " impossible", e);
+        }
+    }
+}
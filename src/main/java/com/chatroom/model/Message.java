@@ -5,6 +5,7 @@ package com.chatroom.model;
  * <p>
  * Cette classe est utilisée pour stocker les informations relatives à un message 
  * envoyé dans la chatroom, notamment son expéditeur, son contenu et son timestamp.
+ * Le numéro de séquence est attribué par le {@link MessageLog} lors de l'ajout.
  * Elle est sérialisée/désérialisée en JSON pour les communications REST.
  * </p>
  *
@@ -15,6 +16,7 @@ public class Message {
     private String sender;
     private String content;
     private long timestamp;
+    private long sequence;
 
    
     public Message() {
@@ -51,12 +53,21 @@ public class Message {
         this.timestamp = timestamp;
     }
 
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public String toString() {
         return "Message{" +
                 "sender='" + sender + '\'' +
                 ", content='" + content + '\'' +
                 ", timestamp=" + timestamp +
+                ", sequence=" + sequence +
                 '}';
     }
 }
@@ -0,0 +1,435 @@
+package com.chatroom.model;
+
+import com.chatroom.util.LogManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Journal durable des messages, en ajout seul, écrit à travers un fichier mappé en mémoire.
+ * <p>
+ * Le fichier est découpé en régions de taille fixe, mappées l'une après l'autre via
+ * {@link FileChannel#map}. Un ajout se limite à une copie en mémoire dans la région
+ * courante ; la synchronisation sur disque (fsync) est faite par lots (« group commit »)
+ * par un thread dédié, au plus toutes les <code>fsyncIntervalMillis</code> millisecondes.
+ * En cas d'arrêt brutal de la machine, seuls les messages de la dernière fenêtre
+ * non synchronisée peuvent être perdus.
+ * </p>
+ *
+ * <p>Format d'un enregistrement :</p>
+ * <pre>
+ * int longueur | int crc32 | long séquence | long timestamp | int n | expéditeur (n octets UTF-8) | int m | contenu (m octets UTF-8)
+ * </pre>
+ * <p>
+ * Une longueur 0 marque la fin du journal (le fichier est rempli de zéros au-delà) ;
+ * une longueur -1 indique que la suite se trouve au début de la région suivante.
+ * Un enregistrement dont le CRC est invalide (écriture interrompue) termine la relecture.
+ * </p>
+ * <p>
+ * Le compactage ({@link #rewrite(Collection)}) écrit les messages conservés dans un fichier
+ * temporaire, le synchronise, puis le renomme atomiquement à la place du journal : un arrêt
+ * brutal pendant le compactage laisse l'ancien ou le nouveau journal, jamais un fichier vide.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessageJournal implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger(MessageJournal.class);
+
+    private static final int HEADER_SIZE = 8;
+    private static final int END_OF_REGION = -1;
+
+    private final Path file;
+    private final Path rewriteFile;
+    private FileChannel channel;
+    private final long regionSize;
+    private final Object lock = new Object();
+    // Sérialise les synchronisations disque et la troncature (jamais pris par les ajouts)
+    private final Object syncLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    // Régions pleines qui n'ont pas encore été synchronisées sur disque
+    private final List<MappedByteBuffer> retiredRegions = new ArrayList<>();
+    private long appendedRecords;
+    private long syncedRecords;
+    private boolean closed;
+
+    /**
+     * Ouvre (ou crée) un journal et se positionne après le dernier enregistrement valide
+     * @param file Le fichier du journal
+     * @param regionSize Taille d'une région mappée en octets
+     * @param fsyncIntervalMillis Intervalle maximum entre deux synchronisations sur disque
+     * @throws IOException Si le fichier ne peut pas être ouvert ou mappé
+     */
+    public MessageJournal(Path file, long regionSize, long fsyncIntervalMillis) throws IOException {
+        this.file = file;
+        this.rewriteFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.regionSize = regionSize;
+        // Reste d'un compactage interrompu : le journal lui-même est intact
+        Files.deleteIfExists(rewriteFile);
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.region = locateEnd();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::syncQuietly,
+                fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Relit séquentiellement tous les enregistrements valides du journal
+     * @param consumer Reçoit chaque message relu, dans l'ordre d'écriture
+     * @return Le nombre de messages relus
+     * @throws IOException En cas d'erreur de lecture
+     */
+    public long replay(Consumer<Message> consumer) throws IOException {
+        synchronized (lock) {
+            long count = 0;
+            long start = 0;
+            long size = channel.size();
+            while (start < size) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+                int status;
+                while ((status = nextRecord(buffer)) > 0) {
+                    consumer.accept(decode(buffer));
+                    count++;
+                }
+                if (status != END_OF_REGION) {
+                    break;
+                }
+                start += regionSize;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Ajoute un message au journal. L'appelant garantit l'ordre des séquences. En cas
+     * d'erreur, rien n'est écrit : le journal reste lisible jusqu'au dernier ajout réussi.
+     * @param message Le message (séquence déjà attribuée)
+     * @throws IOException Si une nouvelle région ne peut pas être mappée (disque plein)
+     * @throws IllegalArgumentException Si le message ne tient pas dans une région
+     */
+    public void append(Message message) throws IOException {
+        append(encode(message));
+    }
+
+    /**
+     * Encode l'expéditeur et le contenu d'un message, une seule fois : l'appelant peut
+     * vérifier qu'il tient dans le journal avant de lui attribuer sa séquence, puis l'écrire
+     * avec {@link #append(Record)}
+     * @param message Le message
+     * @return L'enregistrement à écrire
+     * @throws IllegalArgumentException Si le message ne tient pas dans une région
+     */
+    Record encode(Message message) {
+        Record record = new Record(message, encode(message.getSender()), encode(message.getContent()));
+        if (HEADER_SIZE + record.payload + 4 > regionSize) {
+            throw new IllegalArgumentException("Message trop volumineux pour le journal: " + record.payload + " octets");
+        }
+        return record;
+    }
+
+    /**
+     * Écrit un enregistrement encodé par {@link #encode(Message)}, avec la séquence et
+     * l'horodatage que porte alors son message
+     * @param record L'enregistrement
+     * @throws IOException Si une nouvelle région ne peut pas être mappée (disque plein)
+     */
+    void append(Record record) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("Journal fermé: " + file);
+            }
+            write(record.message, record.sender, record.content, record.payload);
+        }
+    }
+
+    /**
+     * Force la synchronisation sur disque de tous les enregistrements écrits
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void sync() throws IOException {
+        synchronized (syncLock) {
+            List<MappedByteBuffer> toForce;
+            long target;
+            synchronized (lock) {
+                if (closed || appendedRecords == syncedRecords) {
+                    return;
+                }
+                toForce = new ArrayList<>(retiredRegions);
+                toForce.add(region);
+                retiredRegions.clear();
+                target = appendedRecords;
+            }
+            // msync hors du verrou d'ajout : les ajouts ne sont pas bloqués pendant l'écriture disque
+            for (MappedByteBuffer buffer : toForce) {
+                buffer.force();
+            }
+            synchronized (lock) {
+                syncedRecords = Math.max(syncedRecords, target);
+            }
+        }
+    }
+
+    /**
+     * Remplace le contenu du journal par les messages donnés (après écriture d'un instantané
+     * qui couvre les autres). Les messages sont écrits et synchronisés dans un fichier
+     * temporaire, renommé ensuite atomiquement à la place du journal ; en cas d'erreur,
+     * le journal courant est conservé tel quel et reste utilisé.
+     * @param messages Les messages à conserver, dans l'ordre des séquences
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void rewrite(Collection<Message> messages) throws IOException {
+        synchronized (syncLock) {
+            synchronized (lock) {
+                if (closed) {
+                    throw new IOException("Journal fermé: " + file);
+                }
+                FileChannel previousChannel = channel;
+                MappedByteBuffer previousRegion = region;
+                long previousRegionStart = regionStart;
+                List<MappedByteBuffer> previousRetired = new ArrayList<>(retiredRegions);
+                long previousAppended = appendedRecords;
+                try {
+                    channel = FileChannel.open(rewriteFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    retiredRegions.clear();
+                    regionStart = 0;
+                    region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+                    for (Message message : messages) {
+                        byte[] sender = encode(message.getSender());
+                        byte[] content = encode(message.getContent());
+                        write(message, sender, content, payloadSize(sender, content));
+                    }
+                    for (MappedByteBuffer buffer : retiredRegions) {
+                        buffer.force();
+                    }
+                    region.force();
+                    channel.force(true);
+                    Files.move(rewriteFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException | RuntimeException e) {
+                    closeQuietly(channel, previousChannel);
+                    channel = previousChannel;
+                    region = previousRegion;
+                    regionStart = previousRegionStart;
+                    retiredRegions.clear();
+                    retiredRegions.addAll(previousRetired);
+                    appendedRecords = previousAppended;
+                    Files.deleteIfExists(rewriteFile);
+                    throw e;
+                }
+                retiredRegions.clear();
+                syncedRecords = appendedRecords;
+                closeQuietly(previousChannel, channel);
+                DurableFiles.syncDirectory(file);
+            }
+        }
+    }
+
+    /**
+     * @return Le chemin du fichier de journal
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        sync();
+        synchronized (lock) {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void closeQuietly(FileChannel toClose, FileChannel current) {
+        if (toClose == null || toClose == current) {
+            return;
+        }
+        try {
+            toClose.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Impossible de fermer l'ancien fichier du journal " + file, e);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Erreur lors de la synchronisation du journal " + file, e);
+        }
+    }
+
+    /**
+     * Parcourt les enregistrements existants et mappe la région où reprendre l'écriture
+     */
+    private MappedByteBuffer locateEnd() throws IOException {
+        long start = 0;
+        while (true) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+            int status;
+            while ((status = nextRecord(buffer)) > 0) {
+                buffer.position(buffer.position() + status);
+            }
+            if (status != END_OF_REGION) {
+                regionStart = start;
+                return buffer;
+            }
+            start += regionSize;
+        }
+    }
+
+    /**
+     * Valide l'enregistrement à la position courante.
+     * @return La longueur de la charge utile (position placée au début de celle-ci),
+     * 0 en fin de journal ou END_OF_REGION (position inchangée dans ces deux cas)
+     */
+    private int nextRecord(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return buffer.remaining() >= 4 && buffer.getInt(start) == END_OF_REGION ? END_OF_REGION : 0;
+        }
+        int length = buffer.getInt(start);
+        if (length == END_OF_REGION) {
+            return END_OF_REGION;
+        }
+        if (length <= 0 || length > buffer.remaining() - HEADER_SIZE) {
+            return 0;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start + HEADER_SIZE);
+        payload.limit(start + HEADER_SIZE + length);
+        CRC32 check = new CRC32();
+        check.update(payload);
+        if ((int) check.getValue() != buffer.getInt(start + 4)) {
+            LOGGER.warning("Enregistrement corrompu dans le journal " + file + " à la position " + start
+                    + " : fin de la relecture");
+            return 0;
+        }
+        buffer.position(start + HEADER_SIZE);
+        return length;
+    }
+
+    /**
+     * Message dont l'expéditeur et le contenu sont déjà encodés en UTF-8
+     */
+    static final class Record {
+        final Message message;
+        final byte[] sender;
+        final byte[] content;
+        final int payload;
+
+        Record(Message message, byte[] sender, byte[] content) {
+            this.message = message;
+            this.sender = sender;
+            this.content = content;
+            this.payload = payloadSize(sender, content);
+        }
+    }
+
+    private static Message decode(ByteBuffer buffer) {
+        Message message = new Message();
+        message.setSequence(buffer.getLong());
+        message.setTimestamp(buffer.getLong());
+        message.setSender(getString(buffer));
+        message.setContent(getString(buffer));
+        return message;
+    }
+
+    /**
+     * Écrit un enregistrement dans la région courante. Doit être appelée sous le verrou.
+     */
+    private void write(Message message, byte[] sender, byte[] content, int payload) throws IOException {
+        if (region.remaining() < HEADER_SIZE + payload + 4) {
+            nextRegion();
+        }
+
+        int recordStart = region.position();
+        region.position(recordStart + HEADER_SIZE);
+        region.putLong(message.getSequence());
+        region.putLong(message.getTimestamp());
+        putBytes(sender);
+        putBytes(content);
+
+        ByteBuffer written = region.duplicate();
+        written.position(recordStart + HEADER_SIZE);
+        written.limit(recordStart + HEADER_SIZE + payload);
+        crc.reset();
+        crc.update(written);
+        region.putInt(recordStart + 4, (int) crc.getValue());
+        // La longueur est écrite en dernier : un enregistrement incomplet reste invisible
+        region.putInt(recordStart, payload);
+        appendedRecords++;
+    }
+
+    private void nextRegion() throws IOException {
+        // Mappée avant de clore la région courante : en cas d'échec, le journal reste inchangé
+        MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, regionStart + regionSize, regionSize);
+        if (region.remaining() >= 4) {
+            region.putInt(END_OF_REGION);
+        }
+        retiredRegions.add(region);
+        regionStart += regionSize;
+        region = next;
+    }
+
+    private void putBytes(byte[] bytes) {
+        if (bytes == null) {
+            region.putInt(-1);
+        } else {
+            region.putInt(bytes.length);
+            region.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int payloadSize(byte[] sender, byte[] content) {
+        return 8 + 8 + 4 + length(sender) + 4 + length(content);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
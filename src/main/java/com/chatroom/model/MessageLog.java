@@ -0,0 +1,474 @@
+package com.chatroom.model;
+
+import com.chatroom.util.LogManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal de messages en mémoire, en ajout seul et découpé en segments.
+ * <p>
+ * Chaque message ajouté reçoit un numéro de séquence strictement croissant (à partir de 1).
+ * Les messages sont rangés dans des segments de taille fixe : un ajout ne recopie jamais
+ * l'historique (coût O(1) amorti), et la recherche « depuis » se fait par recherche
+ * dichotomique suivie d'une copie de la tranche concernée.
+ * </p>
+ * <p>
+ * Un seul écrivain à la fois (les ajouts sont synchronisés) ; les lectures ne prennent
+ * aucun verrou. Le numéro de séquence suivant est publié via un champ volatile
+ * <em>après</em> l'écriture du message, ce qui garantit qu'un lecteur ne voit jamais
+ * une case vide.
+ * </p>
+ * <p>
+ * Les horodatages sont rendus monotones à l'ajout (un message ne peut pas être plus
+ * ancien que son prédécesseur), ce qui permet la recherche dichotomique par timestamp.
+ * </p>
+ * <p>
+ * La {@link RetentionPolicy} est appliquée de façon incrémentale : chaque ajout évince
+ * au plus {@link #EVICTION_BATCH} messages en tête du journal. L'éviction avance
+ * logiquement message par message ; la mémoire est rendue segment par segment, dès
+ * qu'un segment ne contient plus aucun message retenu. Les segments ne sont jamais
+ * modifiés après éviction, si bien qu'un lecteur concurrent reste cohérent.
+ * </p>
+ * <p>
+ * Si un {@link MessageJournal} est attaché, chaque message y est écrit sous le verrou
+ * d'ajout, ce qui garantit que le journal est ordonné par séquence.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessageLog {
+    private static final Logger LOGGER = LogManager.getLogger(MessageLog.class);
+
+    public static final int SEGMENT_SHIFT = 10;
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int EVICTION_BATCH = 16;
+
+    /**
+     * Segment de taille fixe couvrant les séquences [baseSequence, baseSequence + SEGMENT_SIZE)
+     */
+    private static final class Segment {
+        final long baseSequence;
+        final Message[] entries = new Message[SEGMENT_SIZE];
+
+        Segment(long baseSequence) {
+            this.baseSequence = baseSequence;
+        }
+    }
+
+    private final Object appendLock = new Object();
+    private final RetentionPolicy retentionPolicy;
+    private volatile MessageJournal journal;
+    // Le journal a refusé une écriture : il n'est plus alimenté (pour ne pas y laisser de trou
+    // de séquence) jusqu'au prochain compactage derrière un instantané
+    private boolean journalFailed;
+
+    // Segments dans l'ordre ; le tableau est remplacé (jamais modifié) à chaque nouveau segment
+    private volatile Segment[] segments = new Segment[0];
+    // Première séquence encore présente dans le journal
+    private volatile long firstSequence = 1;
+    // Prochaine séquence à attribuer ; publiée après l'écriture du message
+    private volatile long nextSequence = 1;
+    private long lastTimestamp;
+
+    // Compteurs de rétention : écrits sous verrou, lus sans verrou
+    private volatile long retainedBytes;
+    private volatile long evictedByCount;
+    private volatile long evictedByAge;
+    private volatile long evictedByBytes;
+
+    /**
+     * Crée un journal sans limite de rétention
+     */
+    public MessageLog() {
+        this(RetentionPolicy.unlimited());
+    }
+
+    /**
+     * Crée un journal appliquant la politique de rétention donnée
+     * @param retentionPolicy La politique de rétention
+     */
+    public MessageLog(RetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    /**
+     * Ajoute un message à la fin du journal et lui attribue son numéro de séquence.
+     * <p>
+     * Si le journal durable refuse l'écriture (disque plein), le message reste ajouté en
+     * mémoire mais le journal n'est plus alimenté : il ne contient ainsi que des séquences
+     * contiguës et reste relisible au redémarrage. Le prochain instantané couvre les
+     * messages suivants et le compactage qui le suit réactive le journal.
+     * </p>
+     * @param message Le message à ajouter
+     * @return Le message ajouté, avec sa séquence renseignée
+     * @throws IllegalArgumentException Si le message est trop volumineux pour le journal durable
+     */
+    public Message append(Message message) {
+        synchronized (appendLock) {
+            MessageJournal target = journalFailed ? null : journal;
+            // Encodé avant le rangement : un message trop volumineux n'est pas ajouté
+            MessageJournal.Record record = target == null ? null : target.encode(message);
+            store(message, nextSequence);
+            if (record != null) {
+                write(target, record);
+            }
+            return message;
+        }
+    }
+
+    /**
+     * Ajoute plusieurs messages en une seule prise du verrou : ils reçoivent des séquences
+     * contiguës, dans l'ordre de la liste. Le lot est ajouté en entier ou pas du tout.
+     * @param batch Les messages à ajouter
+     * @return Les messages ajoutés, avec leur séquence renseignée
+     * @throws IllegalArgumentException Si un message du lot est trop volumineux pour le
+     *         journal durable ; aucun message n'est alors ajouté
+     */
+    public List<Message> appendAll(List<Message> batch) {
+        synchronized (appendLock) {
+            MessageJournal target = journalFailed ? null : journal;
+            List<MessageJournal.Record> records = null;
+            if (target != null) {
+                records = new ArrayList<>(batch.size());
+                for (Message message : batch) {
+                    records.add(target.encode(message));
+                }
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                store(batch.get(i), nextSequence);
+                if (records != null && !journalFailed) {
+                    write(target, records.get(i));
+                }
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Réinsère un message relu depuis le stockage durable en conservant sa séquence.
+     * Les séquences doivent être restaurées dans l'ordre croissant ; un premier message
+     * restauré dans un journal vide fixe la séquence de départ.
+     * @param message Le message avec sa séquence d'origine
+     */
+    public void restore(Message message) {
+        synchronized (appendLock) {
+            long sequence = message.getSequence();
+            if (sequence < nextSequence) {
+                return;
+            }
+            if (sequence != nextSequence) {
+                if (firstSequence != nextSequence) {
+                    throw new IllegalStateException("Séquence non contiguë lors de la restauration: attendu "
+                            + nextSequence + ", reçu " + sequence);
+                }
+                // Journal vide : on repart de la séquence restaurée
+                segments = new Segment[0];
+                firstSequence = sequence;
+                nextSequence = sequence;
+            }
+            store(message, sequence);
+        }
+    }
+
+    /**
+     * Fait repartir un journal vide à la séquence donnée (chargement d'un instantané
+     * dont tous les messages ont été évincés). Sans effet si le journal contient des messages.
+     * @param sequence La prochaine séquence à attribuer
+     */
+    public void skipTo(long sequence) {
+        synchronized (appendLock) {
+            if (firstSequence == nextSequence && sequence > nextSequence) {
+                segments = new Segment[0];
+                firstSequence = sequence;
+                nextSequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Copie de façon cohérente les messages retenus, pour un instantané
+     * @param out Reçoit les messages retenus, dans l'ordre
+     * @return La séquence du dernier message ajouté, couverte par la copie
+     */
+    public long capture(List<Message> out) {
+        synchronized (appendLock) {
+            out.addAll(all());
+            return nextSequence - 1;
+        }
+    }
+
+    /**
+     * Compacte le journal durable derrière un instantané : seuls les messages postérieurs
+     * à l'instantané sont conservés. Le journal est remplacé atomiquement, un arrêt pendant
+     * le compactage ne perd donc aucun message déjà synchronisé.
+     * @param snapshotSequence La dernière séquence couverte par l'instantané
+     * @throws IOException En cas d'erreur d'écriture du journal
+     */
+    public void compactJournal(long snapshotSequence) throws IOException {
+        synchronized (appendLock) {
+            if (journal == null) {
+                return;
+            }
+            journal.rewrite(after(snapshotSequence, 0));
+            if (journalFailed) {
+                journalFailed = false;
+                LOGGER.info("Journal réactivé après l'instantané de la séquence " + snapshotSequence);
+            }
+        }
+    }
+
+    /**
+     * Attache (ou détache avec null) le journal durable qui reçoit chaque nouveau message
+     * @param journal Le journal
+     */
+    public void setJournal(MessageJournal journal) {
+        synchronized (appendLock) {
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Écrit un message déjà rangé dans le journal durable ; en cas d'échec, le journal
+     * n'est plus alimenté. Doit être appelée sous le verrou d'ajout.
+     */
+    private void write(MessageJournal target, MessageJournal.Record record) {
+        try {
+            target.append(record);
+        } catch (IOException e) {
+            journalFailed = true;
+            LOGGER.log(Level.SEVERE, "Impossible d'écrire le message " + record.message.getSequence()
+                    + " dans le journal : journal suspendu jusqu'au prochain instantané", e);
+        }
+    }
+
+    /**
+     * Range le message à la séquence donnée puis applique la rétention.
+     * Doit être appelée sous le verrou d'ajout.
+     */
+    private void store(Message message, long sequence) {
+        if (message.getTimestamp() < lastTimestamp) {
+            message.setTimestamp(lastTimestamp);
+        }
+        lastTimestamp = message.getTimestamp();
+        message.setSequence(sequence);
+
+        Segment[] current = segments;
+        Segment tail = current.length == 0 ? null : current[current.length - 1];
+        if (tail == null || sequence - tail.baseSequence >= SEGMENT_SIZE) {
+            tail = new Segment(sequence);
+            Segment[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = tail;
+            segments = grown;
+        }
+        tail.entries[(int) (sequence - tail.baseSequence)] = message;
+        retainedBytes += estimateSize(message);
+
+        nextSequence = sequence + 1;
+        evict(message.getTimestamp());
+    }
+
+    /**
+     * Évince au plus EVICTION_BATCH messages en tête selon la politique de rétention.
+     * Doit être appelée sous le verrou d'ajout.
+     */
+    private void evict(long now) {
+        long first = firstSequence;
+        long end = nextSequence;
+        int evicted = 0;
+        while (first < end && evicted < EVICTION_BATCH) {
+            Message head = entryAt(segments, first);
+            if (retentionPolicy.exceedsCount(end - first)) {
+                evictedByCount++;
+            } else if (retentionPolicy.isExpired(head.getTimestamp(), now)) {
+                evictedByAge++;
+            } else if (retentionPolicy.exceedsBytes(retainedBytes)) {
+                evictedByBytes++;
+            } else {
+                break;
+            }
+            retainedBytes -= estimateSize(head);
+            first++;
+            evicted++;
+        }
+        if (evicted == 0) {
+            return;
+        }
+
+        // La séquence de tête est publiée avant la libération des segments
+        firstSequence = first;
+        Segment[] current = segments;
+        int dropped = (int) ((first - current[0].baseSequence) >>> SEGMENT_SHIFT);
+        if (dropped > 0) {
+            segments = Arrays.copyOfRange(current, dropped, current.length);
+        }
+    }
+
+    /**
+     * Récupère un message par son numéro de séquence
+     * @param sequence La séquence recherchée
+     * @return Le message, ou null s'il n'est pas (ou plus) dans le journal
+     */
+    public Message get(long sequence) {
+        long end = nextSequence;
+        Segment[] current = segments;
+        if (sequence < firstSequence || sequence >= end) {
+            return null;
+        }
+        return entryAt(current, sequence);
+    }
+
+    /**
+     * Récupère les messages dont la séquence est strictement supérieure à celle donnée
+     * @param afterSequence La dernière séquence déjà connue (0 pour tout l'historique)
+     * @param limit Nombre maximum de messages à renvoyer (0 ou négatif pour aucune limite)
+     * @return Les messages suivants, dans l'ordre
+     */
+    public List<Message> after(long afterSequence, int limit) {
+        long end = nextSequence;
+        Segment[] current = segments;
+        // Curseur au-delà du dernier message : rien à renvoyer (évite aussi le dépassement de afterSequence + 1)
+        if (afterSequence >= end - 1) {
+            return Collections.emptyList();
+        }
+        long from = Math.max(afterSequence + 1, firstSequence);
+        if (limit > 0 && end - from > limit) {
+            end = from + limit;
+        }
+        return slice(current, from, end);
+    }
+
+    /**
+     * Récupère les messages dont le timestamp est strictement supérieur à celui donné
+     * @param since Le timestamp de référence (0 pour tout l'historique)
+     * @return Les messages plus récents, dans l'ordre
+     */
+    public List<Message> since(long since) {
+        long end = nextSequence;
+        Segment[] current = segments;
+        long low = firstSequence;
+        long high = end;
+        // Première séquence dont le timestamp dépasse 'since'
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (entryAt(current, mid).getTimestamp() > since) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return slice(current, low, end);
+    }
+
+    /**
+     * @return Une copie de tous les messages présents dans le journal
+     */
+    public List<Message> all() {
+        long end = nextSequence;
+        Segment[] current = segments;
+        return slice(current, firstSequence, end);
+    }
+
+    /**
+     * @return Le nombre de messages présents dans le journal
+     */
+    public int size() {
+        long end = nextSequence;
+        return (int) (end - firstSequence);
+    }
+
+    /**
+     * @return La séquence du premier message conservé
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * @return La séquence du dernier message ajouté (0 si le journal est vide)
+     */
+    public long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * @return Taille mémoire approximative des messages retenus, en octets
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return Nombre de messages évincés parce que le nombre maximum était atteint
+     */
+    public long getEvictedByCount() {
+        return evictedByCount;
+    }
+
+    /**
+     * @return Nombre de messages évincés parce qu'ils avaient dépassé l'âge maximum
+     */
+    public long getEvictedByAge() {
+        return evictedByAge;
+    }
+
+    /**
+     * @return Nombre de messages évincés pour respecter le budget mémoire
+     */
+    public long getEvictedByBytes() {
+        return evictedByBytes;
+    }
+
+    /**
+     * @return La politique de rétention appliquée
+     */
+    public RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * Estime l'empreinte mémoire d'un message (en-tête d'objet, champs et chaînes)
+     * @param message Le message
+     * @return Taille approximative en octets
+     */
+    static long estimateSize(Message message) {
+        return 48 + estimateSize(message.getSender()) + estimateSize(message.getContent());
+    }
+
+    private static long estimateSize(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private List<Message> slice(Segment[] current, long from, long to) {
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        List<Message> result = new ArrayList<>((int) (to - from));
+        long sequence = from;
+        while (sequence < to) {
+            Segment segment = segmentFor(current, sequence);
+            int start = (int) (sequence - segment.baseSequence);
+            int stop = (int) Math.min(SEGMENT_SIZE, to - segment.baseSequence);
+            result.addAll(Arrays.asList(segment.entries).subList(start, stop));
+            sequence = segment.baseSequence + stop;
+        }
+        return result;
+    }
+
+    private Message entryAt(Segment[] current, long sequence) {
+        Segment segment = segmentFor(current, sequence);
+        return segment.entries[(int) (sequence - segment.baseSequence)];
+    }
+
+    private Segment segmentFor(Segment[] current, long sequence) {
+        // Les segments sont contigus et pleins sauf le dernier : accès direct par décalage
+        long base = current[0].baseSequence;
+        return current[(int) ((sequence - base) >>> SEGMENT_SHIFT)];
+    }
+}
@@ -0,0 +1,64 @@
+package com.chatroom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page de messages renvoyée par l'API à curseur.
+ * <p>
+ * Le curseur est opaque pour le client : il suffit de le renvoyer tel quel dans le
+ * paramètre <code>after</code> de la requête suivante pour obtenir exactement les
+ * messages manquants, sans chevauchement ni perte (même pour des messages émis
+ * dans la même milliseconde).
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessagePage {
+    private List<Message> messages = new ArrayList<>();
+    private long cursor;
+    private boolean hasMore;
+
+    public MessagePage() {
+    }
+
+    public MessagePage(List<Message> messages, long cursor, boolean hasMore) {
+        this.messages = messages;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "MessagePage{" +
+                "messages=" + messages.size() +
+                ", cursor=" + cursor +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.chatroom.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Message envoyé par un client (<code>POST /chat/messages</code>, élément d'un lot pour
+ * <code>POST /chat/messages/batch</code>).
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MessageRequest {
+    private String sender;
+    private String content;
+
+    public MessageRequest() {
+    }
+
+    public MessageRequest(String sender, String content) {
+        this.sender = sender;
+        this.content = content;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    /**
+     * @return Vrai si l'expéditeur et le contenu sont renseignés
+     */
+    @JsonIgnore
+    public boolean isComplete() {
+        return sender != null && content != null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.chatroom.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changements de présence entre la version connue d'un client et la version courante.
+ * <p>
+ * Si <code>full</code> est faux, <code>added</code> et <code>removed</code> contiennent
+ * uniquement les arrivées et départs survenus depuis la version du client. Si la version
+ * du client est trop ancienne pour le journal des changements, émise avant un redémarrage
+ * du serveur (ou inconnue),
+ * <code>full</code> est vrai et <code>added</code> contient tous les utilisateurs
+ * connectés : le client doit alors remplacer sa liste.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class PresenceDelta {
+    private long version;
+    private boolean full;
+    private List<User> added = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+
+    public PresenceDelta() {
+    }
+
+    public PresenceDelta(long version, boolean full, List<User> added, List<String> removed) {
+        this.version = version;
+        this.full = full;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<User> getAdded() {
+        return added;
+    }
+
+    public void setAdded(List<User> added) {
+        this.added = added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<String> removed) {
+        this.removed = removed;
+    }
+
+    /**
+     * @return true si la version du client était déjà à jour
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return !full && added.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PresenceDelta{" +
+                "version=" + version +
+                ", full=" + full +
+                ", added=" + added.size() +
+                ", removed=" + removed.size() +
+                '}';
+    }
+}
@@ -0,0 +1,211 @@
+package com.chatroom.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Utilisateurs connectés et journal borné de leurs arrivées et départs.
+ * <p>
+ * Chaque arrivée ou départ incrémente la version de présence et est conservé dans un
+ * journal circulaire des <code>capacity</code> derniers changements. Un client qui
+ * connaît une version récente ne reçoit ainsi que les changements survenus depuis
+ * (O(changements) au lieu de O(utilisateurs)) ; une version sortie du journal donne
+ * lieu à une liste complète.
+ * </p>
+ * <p>
+ * Une version n'a de sens que pour l'exécution du serveur qui l'a émise : ses 32 bits de
+ * poids fort portent une époque tirée au démarrage, et le compteur de changements occupe
+ * les 32 bits de poids faible. Après un redémarrage, la version d'un client appartient à
+ * une autre époque et donne lieu à une liste complète, même si le nouveau compteur l'a
+ * rattrapée.
+ * </p>
+ * <p>
+ * Les modifications et la construction des deltas sont sérialisées par un verrou, si
+ * bien qu'un delta est toujours cohérent avec la version qu'il annonce. Les lectures
+ * d'un utilisateur (signal de vie) restent sans verrou.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class PresenceLog {
+    /**
+     * Arrivée ou départ d'un utilisateur
+     */
+    private static final class Change {
+        final boolean joined;
+        final User user;
+
+        Change(boolean joined, User user) {
+            this.joined = joined;
+            this.user = user;
+        }
+    }
+
+    private static final int EPOCH_SHIFT = 32;
+
+    private final int capacity;
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private final Object lock = new Object();
+    private volatile long version;
+
+    /**
+     * @param capacity Nombre de changements conservés dans le journal
+     */
+    public PresenceLog(int capacity) {
+        this(capacity, ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param capacity Nombre de changements conservés dans le journal
+     * @param epoch Époque de cette exécution (strictement positive), portée par chaque version
+     */
+    PresenceLog(int capacity, int epoch) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La taille du journal de présence doit être positive");
+        }
+        if (epoch <= 0) {
+            throw new IllegalArgumentException("L'époque de présence doit être positive");
+        }
+        this.capacity = capacity;
+        this.version = (long) epoch << EPOCH_SHIFT;
+    }
+
+    /**
+     * Ajoute un utilisateur s'il n'est pas déjà connecté
+     * @param username Le nom d'utilisateur
+     * @return L'utilisateur créé, ou null si le nom est déjà pris
+     */
+    public User join(String username) {
+        synchronized (lock) {
+            User user = new User(username);
+            if (users.putIfAbsent(username, user) != null) {
+                return null;
+            }
+            record(new Change(true, user));
+            return user;
+        }
+    }
+
+    /**
+     * Retire un utilisateur
+     * @param username Le nom d'utilisateur
+     * @return L'utilisateur retiré, ou null s'il n'était pas connecté
+     */
+    public User leave(String username) {
+        synchronized (lock) {
+            User user = users.remove(username);
+            if (user != null) {
+                record(new Change(false, user));
+            }
+            return user;
+        }
+    }
+
+    /**
+     * Retire un utilisateur s'il est toujours celui enregistré sous son nom
+     * @param user L'utilisateur à retirer
+     * @return true s'il a été retiré, false s'il était déjà parti ou remplacé
+     */
+    public boolean leave(User user) {
+        synchronized (lock) {
+            // Comparaison par identité : User.equals ne distingue pas un homonyme
+            if (users.get(user.getUsername()) != user) {
+                return false;
+            }
+            users.remove(user.getUsername());
+            record(new Change(false, user));
+            return true;
+        }
+    }
+
+    /**
+     * Réintègre un utilisateur relu d'un instantané, sans changer la version
+     * @param user L'utilisateur à réintégrer
+     */
+    public void restore(User user) {
+        synchronized (lock) {
+            users.putIfAbsent(user.getUsername(), user);
+        }
+    }
+
+    private void record(Change change) {
+        changes.addLast(change);
+        if (changes.size() > capacity) {
+            changes.removeFirst();
+        }
+        version++;
+    }
+
+    /**
+     * Calcule les changements survenus depuis une version
+     * @param since La version connue du client (négative si aucune)
+     * @return Les arrivées et départs depuis cette version, ou la liste complète si elle
+     *         n'est plus couverte par le journal ou vient d'une autre exécution du serveur
+     */
+    public PresenceDelta since(long since) {
+        synchronized (lock) {
+            long missed = version - since;
+            if (since < 0 || (since >>> EPOCH_SHIFT) != (version >>> EPOCH_SHIFT)
+                    || missed < 0 || missed > changes.size()) {
+                return new PresenceDelta(version, true, new ArrayList<>(users.values()), Collections.emptyList());
+            }
+
+            // Seul le dernier changement de chaque utilisateur compte
+            Map<String, Change> latest = new LinkedHashMap<>();
+            Iterator<Change> newestFirst = changes.descendingIterator();
+            for (long i = 0; i < missed; i++) {
+                Change change = newestFirst.next();
+                latest.putIfAbsent(change.user.getUsername(), change);
+            }
+
+            List<User> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (Change change : latest.values()) {
+                if (change.joined) {
+                    added.add(change.user);
+                } else {
+                    removed.add(change.user.getUsername());
+                }
+            }
+            return new PresenceDelta(version, false, added, removed);
+        }
+    }
+
+    /**
+     * @param username Le nom d'utilisateur
+     * @return L'utilisateur connecté, ou null
+     */
+    public User get(String username) {
+        return users.get(username);
+    }
+
+    /**
+     * @return Une copie de la liste des utilisateurs connectés
+     */
+    public List<User> all() {
+        return new ArrayList<>(users.values());
+    }
+
+    /**
+     * @return Le nombre d'utilisateurs connectés
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * @return La version courante, incrémentée à chaque arrivée ou départ
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chatroom.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limiteur de débit par clé (nom d'utilisateur) en seau à jetons, sans verrou.
+ * <p>
+ * Chaque clé dispose d'un seau de <code>burst</code> jetons, rechargé de
+ * <code>permitsPerSecond</code> jetons par seconde. L'état d'un seau tient dans un seul
+ * <code>long</code> : l'instant théorique auquel il sera de nouveau plein (algorithme GCRA).
+ * Une prise de jetons lit cet instant, calcule le nombre de jetons disponibles et le
+ * fait avancer par compare-and-set, sans jamais bloquer.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * @param permitsPerSecond Débit soutenu autorisé par clé (0 ou négatif pour désactiver la limite)
+     * @param burst Nombre de jetons utilisables d'un coup (au moins 1)
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * @return Vrai si la limite est active
+     */
+    public boolean isEnabled() {
+        return intervalNanos > 0;
+    }
+
+    /**
+     * Prend jusqu'à permits jetons dans le seau de la clé
+     * @param key La clé (nom d'utilisateur)
+     * @param permits Le nombre de jetons demandés
+     * @return Le nombre de jetons accordés, entre 0 et permits
+     */
+    public int tryAcquire(String key, int permits) {
+        if (!isEnabled() || permits <= 0) {
+            return permits;
+        }
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long full = bucket.get();
+            long base = Math.max(full, now);
+            long available = (now + burstNanos - base) / intervalNanos;
+            int granted = (int) Math.min(permits, Math.max(0, available));
+            if (granted == 0 || bucket.compareAndSet(full, base + granted * intervalNanos)) {
+                if (granted < permits) {
+                    throttled.add(permits - granted);
+                }
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * @param key La clé (nom d'utilisateur)
+     * @return Le délai en millisecondes avant qu'un jeton soit de nouveau disponible (0 si immédiat)
+     */
+    public long getRetryAfterMillis(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (!isEnabled() || bucket == null) {
+            return 0;
+        }
+        long wait = bucket.get() - burstNanos + intervalNanos - System.nanoTime();
+        return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+    }
+
+    /**
+     * Oublie le seau d'une clé (utilisateur parti)
+     * @param key La clé
+     */
+    public void remove(String key) {
+        buckets.remove(key);
+    }
+
+    /**
+     * @return Le nombre total de jetons refusés
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package com.chatroom.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Requête d'inscription d'un utilisateur (<code>POST /chat/users</code>).
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RegisterRequest {
+    private String username;
+
+    public RegisterRequest() {
+    }
+
+    public RegisterRequest(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+}
@@ -0,0 +1,73 @@
+package com.chatroom.model;
+
+/**
+ * Politique de rétention de l'historique des messages.
+ * <p>
+ * Trois limites indépendantes peuvent être combinées : nombre maximum de messages,
+ * âge maximum et budget mémoire approximatif (en octets). Une limite à 0 est désactivée.
+ * Les messages les plus anciens sont évincés dès qu'une des limites est dépassée.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class RetentionPolicy {
+    private final int maxMessages;
+    private final long maxAgeMillis;
+    private final long maxBytes;
+
+    /**
+     * Crée une politique de rétention
+     * @param maxMessages Nombre maximum de messages conservés (0 pour aucune limite)
+     * @param maxAgeMillis Âge maximum d'un message en millisecondes (0 pour aucune limite)
+     * @param maxBytes Budget mémoire approximatif en octets (0 pour aucune limite)
+     */
+    public RetentionPolicy(int maxMessages, long maxAgeMillis, long maxBytes) {
+        if (maxMessages < 0 || maxAgeMillis < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Les limites de rétention doivent être positives ou nulles");
+        }
+        this.maxMessages = maxMessages;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return Une politique qui conserve tous les messages
+     */
+    public static RetentionPolicy unlimited() {
+        return new RetentionPolicy(0, 0, 0);
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    boolean exceedsCount(long count) {
+        return maxMessages > 0 && count > maxMessages;
+    }
+
+    boolean isExpired(long timestamp, long now) {
+        return maxAgeMillis > 0 && now - timestamp > maxAgeMillis;
+    }
+
+    boolean exceedsBytes(long bytes) {
+        return maxBytes > 0 && bytes > maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionPolicy{" +
+                "maxMessages=" + maxMessages +
+                ", maxAgeMillis=" + maxAgeMillis +
+                ", maxBytes=" + maxBytes +
+                '}';
+    }
+}
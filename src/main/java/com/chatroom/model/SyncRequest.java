@@ -0,0 +1,71 @@
+package com.chatroom.model;
+
+/**
+ * Requête de synchronisation d'un client (<code>POST /chat/sync</code>).
+ * <p>
+ * Le client envoie son nom, le curseur de son dernier message et la version de la liste
+ * des utilisateurs qu'il affiche (-1 s'il n'en a pas encore). La requête vaut aussi
+ * signal de vie pour l'utilisateur.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class SyncRequest {
+    private String username;
+    private long after;
+    private long presenceVersion = -1;
+    private long wait;
+
+    public SyncRequest() {
+    }
+
+    public SyncRequest(String username, long after, long presenceVersion, long wait) {
+        this.username = username;
+        this.after = after;
+        this.presenceVersion = presenceVersion;
+        this.wait = wait;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public long getAfter() {
+        return after;
+    }
+
+    public void setAfter(long after) {
+        this.after = after;
+    }
+
+    public long getPresenceVersion() {
+        return presenceVersion;
+    }
+
+    public void setPresenceVersion(long presenceVersion) {
+        this.presenceVersion = presenceVersion;
+    }
+
+    public long getWait() {
+        return wait;
+    }
+
+    public void setWait(long wait) {
+        this.wait = wait;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncRequest{" +
+                "username='" + username + '\'' +
+                ", after=" + after +
+                ", presenceVersion=" + presenceVersion +
+                ", wait=" + wait +
+                '}';
+    }
+}
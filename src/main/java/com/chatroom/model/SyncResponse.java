@@ -0,0 +1,76 @@
+package com.chatroom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réponse à une requête de synchronisation : les messages qui suivent le curseur du
+ * client et, si la présence a changé depuis la version qu'il connaît, les arrivées et
+ * départs correspondants.
+ * <p>
+ * <code>presence</code> vaut null lorsque la version du client est à jour ; le client
+ * conserve alors sa liste et sa version. Sinon, il applique le {@link PresenceDelta} et
+ * renvoie sa version lors de l'appel suivant.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class SyncResponse {
+    private List<Message> messages = new ArrayList<>();
+    private long cursor;
+    private boolean hasMore;
+    private PresenceDelta presence;
+
+    public SyncResponse() {
+    }
+
+    public SyncResponse(MessagePage page, PresenceDelta presence) {
+        this.messages = page.getMessages();
+        this.cursor = page.getCursor();
+        this.hasMore = page.isHasMore();
+        this.presence = presence;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public PresenceDelta getPresence() {
+        return presence;
+    }
+
+    public void setPresence(PresenceDelta presence) {
+        this.presence = presence;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResponse{" +
+                "messages=" + messages.size() +
+                ", cursor=" + cursor +
+                ", hasMore=" + hasMore +
+                ", presence=" + presence +
+                '}';
+    }
+}
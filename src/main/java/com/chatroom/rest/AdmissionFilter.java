@@ -0,0 +1,148 @@
+package com.chatroom.rest;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.chatroom.util.Constants.Limits.MAX_IN_FLIGHT;
+import static com.chatroom.util.Constants.Limits.RETRY_AFTER_SECONDS;
+
+/**
+ * Contrôle d'admission global : au-delà de {@code MAX_IN_FLIGHT} requêtes en cours de
+ * traitement, les nouvelles requêtes sont refusées immédiatement avec
+ * <code>503 Service Unavailable</code> et <code>Retry-After</code>, plutôt que de
+ * s'accumuler dans la file des threads de travail.
+ * <p>
+ * Seules les attentes longues ne sont pas comptées : le flux SSE (<code>GET /stream</code>),
+ * la synchronisation (<code>POST /sync</code>) et le long-polling des messages
+ * (<code>GET /messages</code> avec <code>after</code> et <code>wait</code>). Elles sont
+ * suspendues sans occuper de thread, et bornées par leur propre registre. Elles sont
+ * reconnues à la méthode de ressource choisie par Jersey, pas à l'URL seule.
+ * </p>
+ * <p>
+ * La place d'une requête admise est libérée par le filtre de réponse, qui s'exécute aussi
+ * pour les méthodes <code>@Suspended</code> reprises dans la méthode elle-même, et à défaut
+ * à la fin de son traitement ({@link RequestEvent.Type#FINISHED}), lorsqu'elle échoue sur
+ * une exception non gérée et qu'aucun filtre de réponse n'est appelé. Chaque place n'est
+ * libérée qu'une fois.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@Provider
+public class AdmissionFilter implements ContainerRequestFilter, ContainerResponseFilter, ApplicationEventListener {
+    private static final String ADMITTED = AdmissionFilter.class.getName() + ".admitted";
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final LongAdder rejected = new LongAdder();
+
+    // Libère la place d'une requête admise qui n'est pas passée par le filtre de réponse
+    private static final RequestEventListener RELEASE = event -> {
+        if (event.getType() == RequestEvent.Type.FINISHED && event.getContainerRequest() != null) {
+            release(event.getContainerRequest().getProperty(ADMITTED));
+        }
+    };
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (MAX_IN_FLIGHT <= 0 || isLongWait(requestContext)) {
+            return;
+        }
+        if (inFlight.incrementAndGet() > MAX_IN_FLIGHT) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Serveur surchargé, réessayez plus tard")
+                    .build());
+            return;
+        }
+        requestContext.setProperty(ADMITTED, new AtomicBoolean(true));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        release(requestContext.getProperty(ADMITTED));
+    }
+
+    /**
+     * Libère la place associée au marqueur d'une requête admise, au plus une fois
+     * @param admitted La propriété {@code ADMITTED} de la requête, ou null
+     */
+    private static void release(Object admitted) {
+        if (admitted instanceof AtomicBoolean && ((AtomicBoolean) admitted).compareAndSet(true, false)) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return MAX_IN_FLIGHT > 0 ? RELEASE : null;
+    }
+
+    private boolean isLongWait(ContainerRequestContext requestContext) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null || method.getDeclaringClass() != ChatResource.class) {
+            return false;
+        }
+        switch (method.getName()) {
+            case "stream":
+            case "sync":
+                return true;
+            case "getMessages":
+                MultivaluedMap<String, String> query = requestContext.getUriInfo().getQueryParameters();
+                return query.getFirst("after") != null && isPositive(query.getFirst("wait"));
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isPositive(String value) {
+        try {
+            return value != null && Long.parseLong(value) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Le nombre de requêtes admises en cours de traitement
+     */
+    public static int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Le nombre de requêtes refusées faute de capacité
+     */
+    public static long getRejectedCount() {
+        return rejected.sum();
+    }
+}
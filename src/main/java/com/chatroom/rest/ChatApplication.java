@@ -1,5 +1,9 @@
 package com.chatroom.rest;
 
+import com.chatroom.model.ChatJsonModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
@@ -15,8 +19,11 @@ import javax.ws.rs.ApplicationPath;
  * 
  * <ul>
  *   <li>Le package contenant les ressources REST</li>
- *   <li>L'intégration de Jackson pour la sérialisation/désérialisation JSON</li>
+ *   <li>L'intégration de Jackson pour la sérialisation/désérialisation JSON, avec les
+ *       sérialiseurs dédiés de {@link ChatJsonModule}</li>
+ *   <li>Le format binaire Smile, négocié via les en-têtes Accept et Content-Type</li>
  *   <li>Le support CORS pour permettre les requêtes cross-origin</li>
+ *   <li>Le contrôle d'admission, qui refuse les requêtes au-delà de la capacité du serveur</li>
  * </ul>
  * 
  * <p>Cette classe est chargée automatiquement par le serveur Grizzly grâce à
@@ -34,8 +41,15 @@ public class ChatApplication extends ResourceConfig {
         
         // Enregistrer la fonctionnalité Jackson pour le support JSON
         register(JacksonFeature.class);
+        register(ObjectMapperResolver.class);
+        
+        // Format binaire Smile, proposé en alternative à JSON
+        register(new JacksonSmileProvider(new ObjectMapper(new SmileFactory()).registerModule(new ChatJsonModule())));
         
         // Configurer CORS (Cross-Origin Resource Sharing)
         register(CORSFilter.class);
+        
+        // Refuser les requêtes au-delà de la capacité de traitement (503)
+        register(AdmissionFilter.class);
     }
 }
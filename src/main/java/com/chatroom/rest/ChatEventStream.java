@@ -0,0 +1,190 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.ChatListener;
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.User;
+import com.chatroom.util.LogManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.chatroom.util.Constants.Server.MESSAGE_PAGE_LIMIT;
+
+/**
+ * Diffusion des événements de la chatroom en Server-Sent Events (<code>GET /chat/stream</code>).
+ * <p>
+ * Trois types d'événements sont émis : <code>message</code> (identifiant = séquence du
+ * message), <code>join</code> et <code>leave</code> (sans identifiant, le curseur du client
+ * reste donc la séquence du dernier message reçu). Chaque événement est sérialisé en JSON
+ * une seule fois puis diffusé tel quel à tous les abonnés par un {@link SseBroadcaster}.
+ * </p>
+ * <p>
+ * Toutes les diffusions et les abonnements passent par un unique thread : les messages
+ * sont diffusés dans l'ordre des séquences, et un nouvel abonné qui reprend avec
+ * <code>Last-Event-ID</code> reçoit exactement les messages manquants avant de rejoindre
+ * la diffusion, sans trou ni doublon.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatEventStream implements ChatListener {
+    private static final Logger LOGGER = LogManager.getLogger(ChatEventStream.class);
+    private static volatile ChatEventStream instance;
+
+    private final ChatManager chatManager;
+    private final Sse sse;
+    private final SseBroadcaster broadcaster;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new ChatJsonModule());
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sse-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<SseEventSink> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Dernière séquence diffusée ; lue et écrite uniquement par le thread de diffusion
+    private long lastBroadcastSequence;
+
+    private ChatEventStream(ChatManager chatManager, Sse sse) {
+        this.chatManager = chatManager;
+        this.sse = sse;
+        this.broadcaster = sse.newBroadcaster();
+        this.lastBroadcastSequence = chatManager.getLastSequence();
+        broadcaster.onClose(subscribers::remove);
+        broadcaster.onError((sink, error) -> subscribers.remove(sink));
+        chatManager.addListener(this);
+    }
+
+    /**
+     * Récupère le flux d'événements, créé au premier abonnement
+     * @param sse Le contexte SSE fourni par Jersey
+     * @return Le flux unique
+     */
+    public static ChatEventStream getInstance(Sse sse) {
+        ChatEventStream stream = instance;
+        if (stream == null) {
+            synchronized (ChatEventStream.class) {
+                stream = instance;
+                if (stream == null) {
+                    stream = new ChatEventStream(ChatManager.getInstance(), sse);
+                    instance = stream;
+                }
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * @return Le nombre d'abonnés actuellement connectés (0 si le flux n'a jamais été ouvert)
+     */
+    public static int getSubscriberCount() {
+        ChatEventStream stream = instance;
+        return stream == null ? 0 : stream.subscribers.size();
+    }
+
+    /**
+     * Abonne un client. S'il reprend après une coupure, les messages postérieurs à
+     * lastEventId lui sont d'abord envoyés individuellement ; un identifiant postérieur au
+     * dernier message (antérieur à un redémarrage) rejoue tout l'historique retenu.
+     * @param sink La connexion SSE du client
+     * @param lastEventId La séquence du dernier message reçu, ou null pour un nouveau client
+     */
+    public void subscribe(SseEventSink sink, Long lastEventId) {
+        dispatcher.execute(() -> {
+            if (lastEventId != null) {
+                // Au-delà de la dernière séquence connue, le curseur vient d'avant un
+                // redémarrage : l'historique est rejoué depuis le début, comme getMessagesAfter
+                long cursor = lastEventId > chatManager.getLastSequence() ? 0 : lastEventId;
+                while (cursor < lastBroadcastSequence && !sink.isClosed()) {
+                    MessagePage page = chatManager.getMessagesAfter(cursor, MESSAGE_PAGE_LIMIT);
+                    if (page.getMessages().isEmpty()) {
+                        break;
+                    }
+                    for (Message message : page.getMessages()) {
+                        if (message.getSequence() > lastBroadcastSequence) {
+                            break;
+                        }
+                        sink.send(messageEvent(message));
+                    }
+                    cursor = page.getCursor();
+                }
+            }
+            if (!sink.isClosed()) {
+                broadcaster.register(sink);
+                subscribers.add(sink);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        // Diffuse tout ce qui suit la dernière séquence diffusée, dans l'ordre, même si
+        // les notifications des threads d'ajout arrivent dans le désordre
+        dispatcher.execute(() -> {
+            long last = chatManager.getLastSequence();
+            while (lastBroadcastSequence < last) {
+                List<Message> page = chatManager.getMessagesAfter(lastBroadcastSequence, MESSAGE_PAGE_LIMIT).getMessages();
+                if (page.isEmpty()) {
+                    lastBroadcastSequence = last;
+                    break;
+                }
+                for (Message pending : page) {
+                    broadcaster.broadcast(messageEvent(pending));
+                    lastBroadcastSequence = pending.getSequence();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onUserJoined(User user) {
+        dispatcher.execute(() -> broadcaster.broadcast(presenceEvent("join", user)));
+    }
+
+    @Override
+    public void onUserLeft(User user) {
+        dispatcher.execute(() -> broadcaster.broadcast(presenceEvent("leave", user)));
+    }
+
+    private OutboundSseEvent messageEvent(Message message) {
+        return sse.newEventBuilder()
+                .id(Long.toString(message.getSequence()))
+                .name("message")
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, toJson(message))
+                .build();
+    }
+
+    private OutboundSseEvent presenceEvent(String name, User user) {
+        return sse.newEventBuilder()
+                .name(name)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, toJson(user))
+                .build();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            LOGGER.log(Level.WARNING, "Impossible de sérialiser l'événement " + value, e);
+            return "{}";
+        }
+    }
+}
@@ -1,16 +1,45 @@
 package com.chatroom.rest;
 
+import com.chatroom.model.BatchResult;
 import com.chatroom.model.ChatManager;
 import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.MessageRequest;
+import com.chatroom.model.PresenceDelta;
+import com.chatroom.model.RateLimiter;
+import com.chatroom.model.RegisterRequest;
+import com.chatroom.model.SyncRequest;
 import com.chatroom.model.User;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
+import static com.chatroom.util.Constants.Limits.IMPORT_ENABLED;
+import static com.chatroom.util.Constants.Limits.IMPORT_MAX_MESSAGES;
+import static com.chatroom.util.Constants.Limits.MAX_MESSAGE_LENGTH;
+import static com.chatroom.util.Constants.Server.MESSAGE_BATCH_LIMIT;
+import static com.chatroom.util.Constants.Server.MESSAGE_PAGE_LIMIT;
+import static com.chatroom.util.Constants.Timing.LONG_POLL_MAX_WAIT_MS;
+import static com.chatroom.util.Constants.Timing.SYNC_MAX_WAIT_MS;
+
 /**
  * Classe de ressource REST pour la chatroom qui expose les endpoints API pour gérer les utilisateurs et les messages.
  * <p>
@@ -22,41 +51,73 @@ import java.util.HashMap;
  * <p>Endpoints principaux:</p>
  * <ul>
  *   <li><b>GET /chat/users</b> - Récupère la liste des utilisateurs connectés</li>
+ *   <li><b>GET /chat/users?sinceVersion={n}</b> - Récupère les arrivées et départs depuis une version de présence</li>
  *   <li><b>POST /chat/users</b> - Inscrit un nouvel utilisateur</li>
  *   <li><b>DELETE /chat/users/{username}</b> - Déconnecte un utilisateur</li>
  *   <li><b>PUT /chat/users/{username}/heartbeat</b> - Maintient un utilisateur actif</li>
  *   <li><b>GET /chat/messages</b> - Récupère les messages (avec paramètre optionnel since)</li>
+ *   <li><b>GET /chat/messages?after={cursor}&amp;limit={n}</b> - Récupère une page de messages à partir d'un curseur</li>
+ *   <li><b>GET /chat/messages?after={cursor}&amp;wait={ms}</b> - Long-polling : attend le prochain message au plus {ms} millisecondes</li>
  *   <li><b>POST /chat/messages</b> - Envoie un nouveau message</li>
+ *   <li><b>POST /chat/messages/batch</b> - Envoie un lot de messages en une requête, avec un résultat par message</li>
+ *   <li><b>GET /chat/messages/export?after={cursor}</b> - Exporte l'historique en NDJSON, écrit au fil de l'eau</li>
+ *   <li><b>POST /chat/messages/import</b> - Importe en bloc un historique NDJSON</li>
+ *   <li><b>POST /chat/sync</b> - Synchronise un client en une requête : nouveaux messages, présence et signal de vie</li>
+ *   <li><b>GET /chat/stream</b> - Flux Server-Sent Events des messages et des arrivées/départs (reprise via Last-Event-ID)</li>
+ *   <li><b>GET /chat/stats</b> - Expose les compteurs internes (rétention, long-polling, SSE, cache des réponses, limitation de débit)</li>
  * </ul>
  * 
  * <p>Chaque endpoint renvoie une réponse appropriée avec un code de statut HTTP et, si nécessaire, 
  * un corps de réponse au format JSON.</p>
  * 
+ * <p>Les endpoints de données acceptent et produisent aussi le format binaire Smile
+ * (<code>application/x-jackson-smile</code>), plus compact, choisi via les en-têtes
+ * <code>Accept</code> et <code>Content-Type</code>. JSON reste le format par défaut.</p>
+ * 
+ * <p>Les lectures de messages et d'utilisateurs portent un ETag faible, dérivé des séquences de
+ * l'historique ou de la version de présence : un client qui renvoie cet ETag dans
+ * <code>If-None-Match</code> reçoit <code>304 Not Modified</code> sans que la liste ne soit
+ * relue ni encodée.</p>
+ * 
  * @author ESP-DIC3
  * @version 1.0
  */
 @Path("/chat")
 public class ChatResource {
     private final ChatManager chatManager = ChatManager.getInstance();
+    // Distingue les ETags d'un serveur redémarré, dont les séquences repartent de 1
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    // Smile est proposé avec une qualité inférieure : JSON est choisi sauf demande explicite
+    private static final String SMILE = SmileMediaTypes.APPLICATION_JACKSON_SMILE + ";qs=0.9";
+    private static final MediaType SMILE_TYPE = MediaType.valueOf(SmileMediaTypes.APPLICATION_JACKSON_SMILE);
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE, SMILE_TYPE).build();
+    // Statut 429, absent de Response.Status en JAX-RS 2.1
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String RATE_LIMITED = "Trop de messages, réessayez plus tard";
+    private static final String TOO_LONG = "Le contenu ne doit pas dépasser " + MAX_MESSAGE_LENGTH + " caractères";
+    
+    private final ResponseCache responseCache = ResponseCache.getInstance();
+    
+    @Context
+    private Request httpRequest;
     
     /**
      * Enregistre un nouvel utilisateur dans la chatroom
-     * @param userInfo Map contenant les informations de l'utilisateur (username)
+     * @param request Le nom de l'utilisateur à inscrire
      * @return Réponse HTTP avec statut et corps appropriés
      */
     @POST
     @Path("/users")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response registerUser(Map<String, String> userInfo) {
-        if (!userInfo.containsKey("username")) {
+    @Consumes({MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public Response registerUser(RegisterRequest request) {
+        if (request == null || request.getUsername() == null) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("Le nom d'utilisateur est requis")
                     .build();
         }
         
-        String username = userInfo.get("username");
-        User user = chatManager.addUser(username);
+        User user = chatManager.addUser(request.getUsername());
         
         if (user == null) {
             return Response.status(Response.Status.CONFLICT)
@@ -70,14 +131,30 @@ public class ChatResource {
     }
     
     /**
-     * Récupère la liste des utilisateurs connectés
-     * @return Liste des utilisateurs
+     * Récupère la liste des utilisateurs connectés.
+     * <p>
+     * Avec <code>sinceVersion</code>, renvoie un {@link PresenceDelta} ne contenant que les
+     * arrivées et départs survenus depuis cette version, ou la liste complète
+     * (<code>full</code>) si la version est sortie du journal des changements ou a été émise
+     * avant un redémarrage du serveur.
+     * </p>
+     * @param sinceVersion Version de présence connue du client (paramètre optionnel)
+     * @return Liste des utilisateurs, ou changements depuis la version indiquée
      */
     @GET
     @Path("/users")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<User> getUsers() {
-        return chatManager.getAllUsers();
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public Response getUsers(@QueryParam("sinceVersion") Long sinceVersion) {
+        EntityTag tag = presenceTag();
+        Response.ResponseBuilder notModified = httpRequest.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).build();
+        }
+        
+        if (sinceVersion == null) {
+            return Response.ok(responseCache.users()).tag(tag).build();
+        }
+        return Response.ok(chatManager.getPresenceSince(sinceVersion)).tag(tag).build();
     }
     
     /**
@@ -87,7 +164,7 @@ public class ChatResource {
      */
     @PUT
     @Path("/users/{username}/heartbeat")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
     public Response heartbeat(@PathParam("username") String username) {
         boolean exists = chatManager.userExists(username);
         
@@ -128,24 +205,41 @@ public class ChatResource {
     
     /**
      * Ajoute un nouveau message à la chatroom
-     * @param messageInfo Map contenant les informations du message (sender, content)
+     * @param request L'expéditeur et le contenu du message
      * @return Réponse HTTP avec statut et corps appropriés
      */
     @POST
     @Path("/messages")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response addMessage(Map<String, String> messageInfo) {
-        if (!messageInfo.containsKey("sender") || !messageInfo.containsKey("content")) {
+    @Consumes({MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public Response addMessage(MessageRequest request) {
+        if (request == null || !request.isComplete()) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("L'expéditeur et le contenu sont requis")
                     .build();
         }
         
-        String sender = messageInfo.get("sender");
-        String content = messageInfo.get("content");
+        if (request.getContent().length() > MAX_MESSAGE_LENGTH) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(TOO_LONG)
+                    .build();
+        }
+        
+        String sender = request.getSender();
+        if (!chatManager.userExists(sender)) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Utilisateur non trouvé")
+                    .build();
+        }
         
-        Message message = chatManager.addMessage(sender, content);
+        if (chatManager.getRateLimiter().tryAcquire(sender, 1) == 0) {
+            return Response.status(TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(sender))
+                    .entity(RATE_LIMITED)
+                    .build();
+        }
+        
+        Message message = chatManager.addMessage(sender, request.getContent());
         
         if (message == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -159,14 +253,301 @@ public class ChatResource {
     }
     
     /**
-     * Récupère les messages de la chatroom
+     * Ajoute un lot de messages en une seule requête.
+     * <p>
+     * Chaque élément est validé comme un envoi individuel ; les messages valides sont
+     * ajoutés d'un bloc, avec des séquences contiguës dans l'ordre du lot. La réponse
+     * contient un {@link BatchResult} par élément, dans le même ordre.
+     * </p>
+     * <p>
+     * Les jetons de débit de chaque expéditeur sont pris en une fois pour tout le lot : les
+     * messages qui dépassent sa limite sont refusés individuellement (429), et la réponse
+     * porte alors <code>Retry-After</code>.
+     * </p>
+     * @param batch Les messages à ajouter (expéditeur et contenu)
+     * @return Réponse HTTP avec les résultats de chaque message
+     */
+    @POST
+    @Path("/messages/batch")
+    @Consumes({MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public Response addMessages(List<MessageRequest> batch) {
+        if (batch == null || batch.isEmpty() || batch.size() > MESSAGE_BATCH_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Le lot doit contenir entre 1 et " + MESSAGE_BATCH_LIMIT + " messages")
+                    .build();
+        }
+        
+        // Jetons accordés à chaque expéditeur ; les inconnus sont refusés plus loin (404)
+        Map<String, Integer> allowance = new HashMap<>();
+        for (MessageRequest request : batch) {
+            if (request != null && request.isComplete() && request.getContent().length() <= MAX_MESSAGE_LENGTH) {
+                allowance.merge(request.getSender(), 1, Integer::sum);
+            }
+        }
+        RateLimiter rateLimiter = chatManager.getRateLimiter();
+        allowance.replaceAll((sender, count) ->
+                chatManager.userExists(sender) ? rateLimiter.tryAcquire(sender, count) : count);
+        
+        BatchResult[] results = new BatchResult[batch.size()];
+        List<Message> admitted = new ArrayList<>(batch.size());
+        int[] positions = new int[batch.size()];
+        String throttledSender = null;
+        for (int i = 0; i < batch.size(); i++) {
+            MessageRequest request = batch.get(i);
+            if (request == null || !request.isComplete()) {
+                results[i] = BatchResult.failed(400, "L'expéditeur et le contenu sont requis");
+            } else if (request.getContent().length() > MAX_MESSAGE_LENGTH) {
+                results[i] = BatchResult.failed(400, TOO_LONG);
+            } else if (allowance.merge(request.getSender(), -1, Integer::sum) < 0) {
+                results[i] = BatchResult.failed(TOO_MANY_REQUESTS, RATE_LIMITED);
+                throttledSender = request.getSender();
+            } else {
+                positions[admitted.size()] = i;
+                admitted.add(new Message(request.getSender(), request.getContent()));
+            }
+        }
+        
+        List<Message> added = chatManager.addMessages(admitted);
+        for (int k = 0; k < added.size(); k++) {
+            Message message = added.get(k);
+            results[positions[k]] = message == null
+                    ? BatchResult.failed(404, "Utilisateur non trouvé")
+                    : BatchResult.created(message);
+        }
+        
+        Response.ResponseBuilder response = Response.ok(Arrays.asList(results));
+        if (throttledSender != null) {
+            response.header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(throttledSender));
+        }
+        return response.build();
+    }
+    
+    /**
+     * @return Le délai à indiquer dans Retry-After pour un expéditeur limité, en secondes (au moins 1)
+     */
+    private long retryAfterSeconds(String sender) {
+        long millis = chatManager.getRateLimiter().getRetryAfterMillis(sender);
+        return Math.max(1, (millis + 999) / 1000);
+    }
+    
+    /**
+     * Récupère les messages de la chatroom.
+     * <p>
+     * Sans paramètre <code>after</code>, renvoie la liste des messages depuis le timestamp
+     * <code>since</code> (comportement historique). Avec <code>after</code>, renvoie une
+     * {@link MessagePage} contenant au plus <code>limit</code> messages et le curseur
+     * à renvoyer lors de l'appel suivant. Si <code>wait</code> est fourni et qu'aucun
+     * message ne suit le curseur, la requête est suspendue jusqu'au prochain message
+     * (long-polling) ou jusqu'à l'expiration du délai, sans bloquer de thread serveur.
+     * </p>
+     * <p>
+     * Hors long-polling, la réponse porte un ETag : il est lu avant la liste, si bien qu'un
+     * corps n'est jamais plus ancien que son ETag.
+     * </p>
      * @param since Paramètre optionnel pour récupérer uniquement les messages depuis un certain timestamp
-     * @return Liste des messages
+     * @param after Curseur optionnel renvoyé par la page précédente (0 pour le début)
+     * @param limit Nombre maximum de messages par page (borné par {@code MESSAGE_PAGE_LIMIT})
+     * @param wait Délai d'attente maximum en millisecondes (borné par {@code LONG_POLL_MAX_WAIT_MS}), 0 pour répondre immédiatement
+     * @param asyncResponse Réponse asynchrone reprise avec la liste ou la page de messages
      */
     @GET
     @Path("/messages")
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public void getMessages(@QueryParam("since") @DefaultValue("0") long since,
+                            @QueryParam("after") Long after,
+                            @QueryParam("limit") @DefaultValue("" + MESSAGE_PAGE_LIMIT) int limit,
+                            @QueryParam("wait") @DefaultValue("0") long wait,
+                            @Suspended AsyncResponse asyncResponse) {
+        if (after != null && (after < 0 || limit <= 0 || wait < 0)) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Le curseur, la limite et le délai d'attente doivent être positifs")
+                    .build());
+            return;
+        }
+        
+        if (after == null || wait == 0) {
+            EntityTag tag = messagesTag();
+            Response.ResponseBuilder notModified = httpRequest.evaluatePreconditions(tag);
+            if (notModified != null) {
+                asyncResponse.resume(notModified.tag(tag).build());
+            } else if (after == null) {
+                asyncResponse.resume(Response.ok(responseCache.list(chatManager.getMessagesSince(since))).tag(tag).build());
+            } else {
+                asyncResponse.resume(Response.ok(responseCache.page(
+                        chatManager.getMessagesAfter(after, Math.min(limit, MESSAGE_PAGE_LIMIT)))).tag(tag).build());
+            }
+            return;
+        }
+        
+        LongPollRegistry.getInstance().await(asyncResponse, after,
+                Math.min(limit, MESSAGE_PAGE_LIMIT), Math.min(wait, LONG_POLL_MAX_WAIT_MS));
+    }
+    
+    /**
+     * Exporte l'historique en NDJSON (un message par ligne), sans construire de liste
+     * complète ni de corps en mémoire.
+     * @param after Séquence à partir de laquelle exporter (0 pour tout l'historique)
+     * @return Réponse dont le corps est écrit au fil de l'eau
+     */
+    @GET
+    @Path("/messages/export")
+    @Produces(HistoryStream.APPLICATION_NDJSON)
+    public Response exportMessages(@QueryParam("after") @DefaultValue("0") long after) {
+        if (after < 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Le curseur doit être positif")
+                    .build();
+        }
+        return Response.ok(HistoryStream.export(chatManager, after)).build();
+    }
+    
+    /**
+     * Importe en bloc un historique NDJSON, lu au fil du flux. Chaque message
+     * (<code>sender</code>, <code>content</code>, <code>timestamp</code> optionnel) reçoit
+     * une nouvelle séquence, après celles des messages déjà présents.
+     * <p>
+     * Désactivé par défaut (403) : il faut démarrer le serveur avec
+     * <code>-Dchatroom.limits.importEnabled=true</code>. Une requête importe au plus
+     * {@code IMPORT_MAX_MESSAGES} messages, dont les expéditeurs doivent être connectés
+     * (voir {@link ChatManager#importMessages(java.util.Iterator, int)}).
+     * </p>
+     * @param input Le corps de la requête
+     * @return Réponse HTTP avec le nombre de messages importés
+     * @throws IOException En cas d'erreur de lecture du corps
+     */
+    @POST
+    @Path("/messages/import")
+    @Consumes({HistoryStream.APPLICATION_NDJSON, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importMessages(InputStream input) throws IOException {
+        if (!IMPORT_ENABLED) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity("Import désactivé sur ce serveur")
+                    .build();
+        }
+        
+        long imported;
+        try {
+            imported = HistoryStream.importFrom(chatManager, input, IMPORT_MAX_MESSAGES);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity(e.getMessage())
+                    .build();
+        }
+        
+        Map<String, Long> result = new HashMap<>();
+        result.put("imported", imported);
+        result.put("lastSequence", chatManager.getLastSequence());
+        return Response.ok(result).build();
+    }
+    
+    /**
+     * Synchronise un client en une seule requête, qui remplace les appels séparés de
+     * récupération des messages, de la liste des utilisateurs et de signal de vie.
+     * <p>
+     * La requête rafraîchit l'activité de l'utilisateur, puis renvoie les messages qui
+     * suivent son curseur et, si la présence a changé depuis sa version, les arrivées et
+     * départs correspondants. Si rien n'a changé et que <code>wait</code> est fourni, la requête est
+     * suspendue jusqu'au prochain message ou changement de présence (au plus
+     * {@code SYNC_MAX_WAIT_MS}, pour que l'utilisateur n'expire pas pendant l'attente).
+     * </p>
+     * @param request Le nom, le curseur, la version de présence et le délai d'attente du client
+     * @param asyncResponse Réponse asynchrone reprise avec l'état à synchroniser
+     */
+    @POST
+    @Path("/sync")
+    @Consumes({MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, SMILE})
+    public void sync(SyncRequest request, @Suspended AsyncResponse asyncResponse) {
+        if (request == null || request.getUsername() == null) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Le nom d'utilisateur est requis")
+                    .build());
+            return;
+        }
+        
+        if (request.getAfter() < 0 || request.getWait() < 0) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Le curseur et le délai d'attente doivent être positifs")
+                    .build());
+            return;
+        }
+        
+        if (!chatManager.userExists(request.getUsername())) {
+            asyncResponse.resume(Response.status(Response.Status.NOT_FOUND)
+                    .entity("Utilisateur non trouvé")
+                    .build());
+            return;
+        }
+        
+        LongPollRegistry.getInstance().awaitSync(asyncResponse, request.getAfter(), request.getPresenceVersion(),
+                MESSAGE_PAGE_LIMIT, Math.min(request.getWait(), SYNC_MAX_WAIT_MS));
+    }
+    
+    /**
+     * Ouvre un flux Server-Sent Events des messages (<code>message</code>) et des
+     * arrivées/départs d'utilisateurs (<code>join</code>, <code>leave</code>).
+     * @param sink La connexion SSE du client
+     * @param sse Le contexte SSE de Jersey
+     * @param lastEventId Séquence du dernier message reçu, pour reprendre après une coupure
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(@Context SseEventSink sink,
+                       @Context Sse sse,
+                       @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) Long lastEventId) {
+        ChatEventStream.getInstance(sse).subscribe(sink, lastEventId);
+    }
+    
+    /**
+     * ETag de l'historique : une réponse de lecture des messages ne dépend que de l'URL et
+     * de la fenêtre de séquences retenues (un message ajouté ne change plus)
+     */
+    private EntityTag messagesTag() {
+        return representationTag(EPOCH + "-m" + chatManager.getFirstSequence() + "-" + chatManager.getLastSequence());
+    }
+    
+    /**
+     * ETag de la présence, dérivé de sa version
+     */
+    private EntityTag presenceTag() {
+        return representationTag(EPOCH + "-p" + chatManager.getPresenceVersion());
+    }
+    
+    /**
+     * Distingue les ETags des représentations JSON et Smile d'une même ressource. L'ETag est
+     * faible : Grizzly peut encore compresser le corps en gzip, et les octets envoyés ne sont
+     * alors plus ceux que désignerait un ETag fort
+     */
+    private EntityTag representationTag(String value) {
+        Variant variant = httpRequest.selectVariant(VARIANTS);
+        boolean smile = variant != null && SMILE_TYPE.isCompatible(variant.getMediaType());
+        return new EntityTag(smile ? value + "-s" : value, true);
+    }
+    
+    /**
+     * Expose les compteurs internes du serveur (rétention de l'historique, long-polling, SSE, cache des réponses,
+     * limitation de débit et contrôle d'admission)
+     * @return Les compteurs sous forme de paires nom/valeur
+     */
+    @GET
+    @Path("/stats")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Message> getMessages(@QueryParam("since") @DefaultValue("0") long since) {
-        return chatManager.getMessagesSince(since);
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = chatManager.getRetentionStats();
+        stats.put("longPollWaiting", (long) LongPollRegistry.getInstance().getWaitingCount());
+        stats.put("sseSubscribers", (long) ChatEventStream.getSubscriberCount());
+        stats.put("responseCacheHits", responseCache.getHits());
+        stats.put("responseCacheMisses", responseCache.getMisses());
+        stats.put("responseCacheSegments", (long) responseCache.getSegmentCount());
+        stats.put("rateLimitedMessages", chatManager.getRateLimiter().getThrottledCount());
+        stats.put("inFlightRequests", (long) AdmissionFilter.getInFlightCount());
+        stats.put("rejectedRequests", AdmissionFilter.getRejectedCount());
+        return stats;
     }
 }
@@ -0,0 +1,95 @@
+package com.chatroom.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corps de réponse JSON déjà encodé, sous forme d'une suite de tranches d'octets.
+ * <p>
+ * Les tranches (un message, un séparateur, une liste d'utilisateurs...) proviennent du
+ * {@link ResponseCache} et sont partagées entre réponses : elles ne doivent jamais être
+ * modifiées. {@link EncodedJsonWriter} les écrit telles quelles dans la réponse, sans
+ * passer par Jackson ni les recopier dans un tampon intermédiaire.
+ * </p>
+ * <p>
+ * L'objet d'origine est conservé pour les clients qui demandent le format binaire
+ * (voir {@link EncodedJsonSmileWriter}).
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public final class EncodedJson {
+    private final List<byte[]> slices;
+    private final int length;
+    private final Object source;
+
+    private EncodedJson(List<byte[]> slices, int length, Object source) {
+        this.slices = slices;
+        this.length = length;
+        this.source = source;
+    }
+
+    /**
+     * @return L'objet dont ce corps est l'encodage JSON
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return La taille totale du corps en octets
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Écrit toutes les tranches dans le flux
+     * @param out Le flux de la réponse
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (byte[] slice : slices) {
+            out.write(slice);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder json = new StringBuilder(length);
+        for (byte[] slice : slices) {
+            json.append(new String(slice, StandardCharsets.UTF_8));
+        }
+        return json.toString();
+    }
+
+    /**
+     * Assemble un corps à partir de tranches partagées et de fragments littéraux
+     */
+    static final class Builder {
+        private final List<byte[]> slices;
+        private int length;
+
+        Builder(int expectedSlices) {
+            this.slices = new ArrayList<>(expectedSlices);
+        }
+
+        Builder append(byte[] slice) {
+            slices.add(slice);
+            length += slice.length;
+            return this;
+        }
+
+        Builder append(String text) {
+            return append(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        EncodedJson build(Object source) {
+            return new EncodedJson(slices, length, source);
+        }
+    }
+}
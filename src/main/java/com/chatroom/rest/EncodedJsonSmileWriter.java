@@ -0,0 +1,51 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatJsonModule;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Écrit un {@link EncodedJson} au format binaire Smile, à partir de l'objet d'origine,
+ * pour les clients qui le demandent via <code>Accept</code>.
+ * <p>
+ * Ce format ne passe pas par le {@link ResponseCache} : par défaut, Smile remplace les noms
+ * de champs déjà écrits par des références arrière, si bien que l'encodage d'un message
+ * dépend de ce qui le précède dans la réponse et ne peut pas être partagé tel quel.
+ * JSON reste le format par défaut ; Smile, optionnel, est encodé à chaque requête.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@Provider
+@Produces(SmileMediaTypes.APPLICATION_JACKSON_SMILE)
+public class EncodedJsonSmileWriter implements MessageBodyWriter<EncodedJson> {
+    // Le flux de la réponse appartient au conteneur : il est vidé mais jamais fermé
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory())
+            .registerModule(new ChatJsonModule())
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == EncodedJson.class;
+    }
+
+    @Override
+    public void writeTo(EncodedJson json, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        smileMapper.writeValue(entityStream, json.getSource());
+    }
+}
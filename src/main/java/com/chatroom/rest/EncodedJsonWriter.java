@@ -0,0 +1,39 @@
+package com.chatroom.rest;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Écrit un {@link EncodedJson} directement dans le flux de la réponse.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class EncodedJsonWriter implements MessageBodyWriter<EncodedJson> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == EncodedJson.class;
+    }
+
+    @Override
+    public long getSize(EncodedJson json, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return json.length();
+    }
+
+    @Override
+    public void writeTo(EncodedJson json, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        json.writeTo(entityStream);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Export et import de l'historique des messages en NDJSON (un message JSON par ligne).
+ * <p>
+ * L'export parcourt l'historique page par page et écrit chaque message directement dans
+ * la réponse : la mémoire utilisée ne dépend pas de la taille de l'historique, contrairement
+ * à <code>GET /chat/messages</code> qui construit la liste complète. Il s'arrête au dernier
+ * message présent au début de l'export ; un message évincé entre deux pages est sauté.
+ * </p>
+ * <p>
+ * L'import lit les messages au fil du flux et les ajoute un par un à l'historique.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public final class HistoryStream {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int EXPORT_PAGE_SIZE = 256;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new ChatJsonModule())
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectWriter MESSAGE_WRITER = OBJECT_MAPPER.writerFor(Message.class);
+    private static final ObjectReader MESSAGE_READER = OBJECT_MAPPER.readerFor(Message.class);
+
+    // Empêcher l'instanciation
+    private HistoryStream() {}
+
+    /**
+     * Prépare l'export des messages qui suivent une séquence
+     * @param chatManager Le gestionnaire de la chatroom
+     * @param after La séquence à partir de laquelle exporter (0 pour tout l'historique)
+     * @return Le corps de la réponse, écrit au fil de l'eau par Jersey
+     */
+    public static StreamingOutput export(ChatManager chatManager, long after) {
+        return output -> {
+            long end = chatManager.getLastSequence();
+            long cursor = Math.min(after, end);
+            try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(output)) {
+                // Une ligne par message, sans le séparateur par défaut (espace) entre valeurs
+                generator.setRootValueSeparator(null);
+                while (cursor < end) {
+                    MessagePage page = chatManager.getMessagesAfter(cursor, EXPORT_PAGE_SIZE);
+                    if (page.getMessages().isEmpty()) {
+                        break;
+                    }
+                    for (Message message : page.getMessages()) {
+                        if (message.getSequence() > end) {
+                            return;
+                        }
+                        MESSAGE_WRITER.writeValue(generator, message);
+                        generator.writeRaw('\n');
+                    }
+                    cursor = page.getCursor();
+                }
+            }
+        };
+    }
+
+    /**
+     * Importe les messages d'un flux NDJSON (ou de valeurs JSON simplement juxtaposées)
+     * @param chatManager Le gestionnaire de la chatroom
+     * @param input Le corps de la requête
+     * @param maxMessages Nombre maximum de messages acceptés
+     * @return Le nombre de messages importés
+     * @throws IOException En cas d'erreur de lecture du flux
+     * @throws IllegalArgumentException Si un message est invalide ou en trop ; les précédents restent importés
+     */
+    public static long importFrom(ChatManager chatManager, InputStream input, int maxMessages) throws IOException {
+        try (MappingIterator<Message> messages = MESSAGE_READER.readValues(input)) {
+            return chatManager.importMessages(messages, maxMessages);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatListener;
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.SyncResponse;
+import com.chatroom.model.User;
+
+import javax.ws.rs.container.AsyncResponse;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Registre des requêtes de long-polling en attente de nouveaux messages.
+ * <p>
+ * Une requête <code>GET /chat/messages?after=...&amp;wait=...</code> sans nouveau message
+ * est suspendue via {@link AsyncResponse} : aucun thread de travail Grizzly n'est bloqué
+ * pendant l'attente. Dès que le {@link ChatManager} ajoute un message, toutes les requêtes
+ * en attente sont reprises avec la page qui suit leur curseur ; à l'expiration du délai,
+ * elles sont reprises avec une page vide.
+ * </p>
+ * <p>
+ * Les synchronisations (<code>POST /chat/sync</code>) sont suspendues de la même façon,
+ * mais sont aussi reprises dès que la présence change (arrivée ou départ d'un utilisateur).
+ * </p>
+ * <p>
+ * Les pages sont encodées par le {@link ResponseCache}. Les reprises sont exécutées sur un petit pool dédié afin de ne pas faire porter
+ * l'écriture des réponses au thread qui a posté le message.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class LongPollRegistry implements ChatListener {
+    private static final LongPollRegistry instance = new LongPollRegistry(ChatManager.getInstance());
+
+    private final ChatManager chatManager;
+    private final ResponseCache responseCache = ResponseCache.getInstance();
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final ExecutorService resumeExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "long-poll-resume");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Requête suspendue ; ne peut être reprise qu'une seule fois
+     */
+    private final class Waiter {
+        final AsyncResponse response;
+        final long after;
+        final boolean watchPresence;
+        final long presenceVersion;
+        final Supplier<Object> result;
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Waiter(AsyncResponse response, long after, boolean watchPresence, long presenceVersion, Supplier<Object> result) {
+            this.response = response;
+            this.after = after;
+            this.watchPresence = watchPresence;
+            this.presenceVersion = presenceVersion;
+            this.result = result;
+        }
+
+        boolean isReady() {
+            return chatManager.getLastSequence() > after
+                    || (watchPresence && chatManager.getPresenceVersion() != presenceVersion);
+        }
+
+        void resume() {
+            if (done.compareAndSet(false, true)) {
+                waiters.remove(this);
+                response.resume(result.get());
+            }
+        }
+    }
+
+    private LongPollRegistry(ChatManager chatManager) {
+        this.chatManager = chatManager;
+        chatManager.addListener(this);
+    }
+
+    public static LongPollRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Répond immédiatement s'il existe des messages après le curseur, sinon suspend la
+     * requête jusqu'au prochain message ou jusqu'à l'expiration du délai.
+     * @param response La réponse asynchrone à reprendre
+     * @param after Le curseur du client
+     * @param limit Nombre maximum de messages dans la page
+     * @param waitMillis Délai d'attente maximum en millisecondes
+     */
+    public void await(AsyncResponse response, long after, int limit, long waitMillis) {
+        MessagePage page = chatManager.getMessagesAfter(after, limit);
+        if (!page.getMessages().isEmpty() || waitMillis <= 0) {
+            response.resume(responseCache.page(page));
+            return;
+        }
+        // Page vide : son curseur est le curseur effectif (remis à 0 s'il dépassait l'historique)
+        long cursor = page.getCursor();
+        suspend(new Waiter(response, cursor, false, 0,
+                () -> responseCache.page(chatManager.getMessagesAfter(cursor, limit))), waitMillis);
+    }
+
+    /**
+     * Répond immédiatement s'il existe des messages après le curseur ou si la présence a
+     * changé depuis la version du client, sinon suspend la requête jusqu'au prochain de ces
+     * événements ou jusqu'à l'expiration du délai.
+     * @param response La réponse asynchrone à reprendre
+     * @param after Le curseur du client
+     * @param presenceVersion La version de présence connue du client
+     * @param limit Nombre maximum de messages dans la page
+     * @param waitMillis Délai d'attente maximum en millisecondes
+     */
+    public void awaitSync(AsyncResponse response, long after, long presenceVersion, int limit, long waitMillis) {
+        SyncResponse state = chatManager.getSyncState(after, presenceVersion, limit);
+        if (!state.getMessages().isEmpty() || state.getPresence() != null || waitMillis <= 0) {
+            response.resume(responseCache.sync(state));
+            return;
+        }
+        long cursor = state.getCursor();
+        suspend(new Waiter(response, cursor, true, presenceVersion,
+                () -> responseCache.sync(chatManager.getSyncState(cursor, presenceVersion, limit))), waitMillis);
+    }
+
+    private void suspend(Waiter waiter, long waitMillis) {
+        waiter.response.setTimeoutHandler(suspended -> waiter.resume());
+        waiter.response.setTimeout(waitMillis, TimeUnit.MILLISECONDS);
+        waiters.add(waiter);
+
+        // Un événement a pu survenir entre la lecture et l'enregistrement
+        if (waiter.isReady()) {
+            waiter.resume();
+        }
+    }
+
+    /**
+     * @return Le nombre de requêtes actuellement suspendues
+     */
+    public int getWaitingCount() {
+        return waiters.size();
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        resumeExecutor.execute(() -> {
+            for (Waiter waiter : waiters) {
+                if (message.getSequence() > waiter.after) {
+                    waiter.resume();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onUserJoined(User user) {
+        resumePresenceWaiters();
+    }
+
+    @Override
+    public void onUserLeft(User user) {
+        resumePresenceWaiters();
+    }
+
+    private void resumePresenceWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        resumeExecutor.execute(() -> {
+            for (Waiter waiter : waiters) {
+                if (waiter.watchPresence && waiter.isReady()) {
+                    waiter.resume();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatJsonModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Fournit au support JSON de Jersey l'ObjectMapper de l'application, qui enregistre
+ * le {@link ChatJsonModule}.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class ObjectMapperResolver implements ContextResolver<ObjectMapper> {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new ChatJsonModule());
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return objectMapper;
+    }
+}
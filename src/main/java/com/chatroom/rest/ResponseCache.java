@@ -0,0 +1,227 @@
+package com.chatroom.rest;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.ChatListener;
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.PresenceDelta;
+import com.chatroom.model.SyncResponse;
+import com.chatroom.model.User;
+import com.chatroom.util.LogManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.chatroom.model.MessageLog.SEGMENT_SHIFT;
+import static com.chatroom.model.MessageLog.SEGMENT_SIZE;
+
+/**
+ * Cache des réponses JSON pré-encodées de l'API REST.
+ * <p>
+ * Un message est immuable une fois ajouté : il est sérialisé une seule fois, et ses octets
+ * sont conservés dans des segments qui suivent le découpage du {@link com.chatroom.model.MessageLog}.
+ * Une page, une liste ou une synchronisation est ensuite assemblée à partir de ces tranches
+ * partagées ({@link EncodedJson}), quel que soit le nombre de clients qui la demandent.
+ * Les segments sortis de la fenêtre de rétention sont libérés au fil des ajouts.
+ * </p>
+ * <p>
+ * La liste des utilisateurs est encodée une fois par version de présence et invalidée à
+ * chaque arrivée ou départ. Le champ <code>lastActive</code> qu'elle contient est donc
+ * celui du moment de l'encodage.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ResponseCache implements ChatListener {
+    private static final Logger LOGGER = LogManager.getLogger(ResponseCache.class);
+    private static final ResponseCache instance = new ResponseCache(ChatManager.getInstance());
+
+    private static final byte[] COMMA = {','};
+    private static final byte[] LIST_START = {'['};
+    private static final byte[] LIST_END = {']'};
+    private static final byte[] PAGE_START = "{\"messages\":[".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Liste des utilisateurs encodée pour une version de présence
+     */
+    private static final class EncodedUsers {
+        final long version;
+        final List<User> users;
+        final byte[] json;
+
+        EncodedUsers(long version, List<User> users, byte[] json) {
+            this.version = version;
+            this.users = users;
+            this.json = json;
+        }
+    }
+
+    private final ChatManager chatManager;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new ChatJsonModule());
+    // Messages encodés, par segment de séquences (séquence >>> SEGMENT_SHIFT)
+    private final Map<Long, AtomicReferenceArray<byte[]>> segments = new ConcurrentHashMap<>();
+    private volatile long firstCachedSegment;
+    private volatile EncodedUsers users;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ResponseCache(ChatManager chatManager) {
+        this.chatManager = chatManager;
+        chatManager.addListener(this);
+    }
+
+    public static ResponseCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Encode une page de messages : <code>{"messages":[...],"cursor":n,"hasMore":b}</code>
+     * @param page La page à encoder
+     * @return Le corps de la réponse
+     */
+    public EncodedJson page(MessagePage page) {
+        return messages(page.getMessages(), PAGE_START)
+                .append("],\"cursor\":" + page.getCursor() + ",\"hasMore\":" + page.isHasMore() + "}")
+                .build(page);
+    }
+
+    /**
+     * Encode une liste de messages : <code>[...]</code>
+     * @param messages Les messages à encoder
+     * @return Le corps de la réponse
+     */
+    public EncodedJson list(List<Message> messages) {
+        return messages(messages, LIST_START).append(LIST_END).build(messages);
+    }
+
+    /**
+     * Encode une réponse de synchronisation ; seuls les messages passent par le cache,
+     * le delta de présence étant propre à la version du client
+     * @param state La réponse à encoder
+     * @return Le corps de la réponse
+     */
+    public EncodedJson sync(SyncResponse state) {
+        PresenceDelta presence = state.getPresence();
+        return messages(state.getMessages(), PAGE_START)
+                .append("],\"cursor\":" + state.getCursor() + ",\"hasMore\":" + state.isHasMore() + ",\"presence\":")
+                .append(presence == null ? "null".getBytes(StandardCharsets.UTF_8) : encode(presence))
+                .append("}")
+                .build(state);
+    }
+
+    /**
+     * Encode la liste des utilisateurs connectés, une seule fois par version de présence
+     * @return Le corps de la réponse
+     */
+    public EncodedJson users() {
+        long version = chatManager.getPresenceVersion();
+        EncodedUsers cached = users;
+        if (cached != null && cached.version == version) {
+            hits.increment();
+        } else {
+            misses.increment();
+            List<User> all = chatManager.getAllUsers();
+            cached = new EncodedUsers(version, all, encode(all));
+            // Une arrivée ou un départ pendant l'encodage rend la liste périmée pour cette version
+            if (chatManager.getPresenceVersion() == version) {
+                users = cached;
+            }
+        }
+        return new EncodedJson.Builder(1).append(cached.json).build(cached.users);
+    }
+
+    private EncodedJson.Builder messages(List<Message> messages, byte[] start) {
+        EncodedJson.Builder json = new EncodedJson.Builder(2 * messages.size() + 3).append(start);
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                json.append(COMMA);
+            }
+            json.append(encoded(messages.get(i)));
+        }
+        return json;
+    }
+
+    private byte[] encoded(Message message) {
+        long sequence = message.getSequence();
+        long key = sequence >>> SEGMENT_SHIFT;
+        if (sequence <= 0 || key < firstCachedSegment) {
+            return encode(message);
+        }
+        AtomicReferenceArray<byte[]> segment = segments.computeIfAbsent(key, k -> new AtomicReferenceArray<>(SEGMENT_SIZE));
+        int index = (int) (sequence & (SEGMENT_SIZE - 1));
+        byte[] json = segment.get(index);
+        if (json != null) {
+            hits.increment();
+            return json;
+        }
+        misses.increment();
+        // Deux threads peuvent encoder le même message : les octets sont identiques
+        json = encode(message);
+        segment.set(index, json);
+        return json;
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            // Les modèles sont de simples beans : ne se produit pas en pratique
+            LOGGER.log(Level.SEVERE, "Impossible d'encoder " + value, e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        long firstSegment = chatManager.getFirstSequence() >>> SEGMENT_SHIFT;
+        if (firstSegment > firstCachedSegment) {
+            synchronized (segments) {
+                if (firstSegment > firstCachedSegment) {
+                    firstCachedSegment = firstSegment;
+                    segments.keySet().removeIf(key -> key < firstSegment);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onUserJoined(User user) {
+        users = null;
+    }
+
+    @Override
+    public void onUserLeft(User user) {
+        users = null;
+    }
+
+    /**
+     * @return Le nombre de messages ou listes servis depuis le cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Le nombre d'encodages effectués faute d'entrée dans le cache
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Le nombre de segments de messages encodés conservés
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.chatroom.rest;
+
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+
+/**
+ * Ajoute <code>Vary: Accept, Accept-Encoding</code> aux réponses JSON et Smile.
+ * <p>
+ * Grizzly compresse en gzip les réponses volumineuses lorsque le client l'accepte, et
+ * une même URL peut être servie en JSON ou en Smile selon <code>Accept</code> : les caches
+ * intermédiaires doivent distinguer ces variantes. Les variantes gzip partagent l'ETag de
+ * la réponse non compressée, qui est faible pour cette raison ; JSON et Smile ont des ETags
+ * distincts.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@Provider
+public class VaryEncodingFilter implements ContainerResponseFilter {
+    private static final MediaType SMILE_TYPE = MediaType.valueOf(SmileMediaTypes.APPLICATION_JACKSON_SMILE);
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        MediaType type = responseContext.getMediaType();
+        if (MediaType.APPLICATION_JSON_TYPE.isCompatible(type) || SMILE_TYPE.isCompatible(type)) {
+            // Jersey ajoute déjà Vary: Accept lorsque la ressource a négocié une variante
+            String vary = responseContext.getHeaderString(HttpHeaders.VARY);
+            responseContext.getHeaders().add(HttpHeaders.VARY, vary == null
+                    ? HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING
+                    : HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+}
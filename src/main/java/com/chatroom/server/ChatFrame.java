@@ -0,0 +1,119 @@
+package com.chatroom.server;
+
+import com.chatroom.model.Message;
+import com.chatroom.model.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Trame JSON échangée sur la connexion WebSocket de la chatroom.
+ * <p>Trames envoyées par le client :</p>
+ * <ul>
+ *   <li><b>hello</b> (<code>username</code>, <code>after</code> optionnel) - inscrit l'utilisateur,
+ *   lui associe la connexion et demande les messages qui suivent le curseur ; refusé si le nom
+ *   est déjà pris ou si la connexion a déjà envoyé un <b>hello</b></li>
+ *   <li><b>send</b> (<code>content</code>) - envoie un message</li>
+ *   <li><b>ping</b> - signal de vie, le serveur répond <b>pong</b></li>
+ * </ul>
+ * <p>Trames envoyées par le serveur :</p>
+ * <ul>
+ *   <li><b>welcome</b> (<code>user</code>) - réponse à <b>hello</b></li>
+ *   <li><b>message</b> (<code>message</code>) - nouveau message, dans l'ordre des séquences</li>
+ *   <li><b>join</b> / <b>leave</b> (<code>user</code>) - arrivée ou départ d'un utilisateur</li>
+ *   <li><b>ack</b> (<code>message</code>) - confirmation d'un <b>send</b> avec la séquence attribuée</li>
+ *   <li><b>error</b> (<code>error</code>) - requête refusée</li>
+ * </ul>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatFrame {
+    private String type;
+    private String username;
+    private String content;
+    private Long after;
+    private Message message;
+    private User user;
+    private String error;
+
+    public ChatFrame() {
+    }
+
+    public ChatFrame(String type) {
+        this.type = type;
+    }
+
+    public static ChatFrame message(String type, Message message) {
+        ChatFrame frame = new ChatFrame(type);
+        frame.setMessage(message);
+        return frame;
+    }
+
+    public static ChatFrame user(String type, User user) {
+        ChatFrame frame = new ChatFrame(type);
+        frame.setUser(user);
+        return frame;
+    }
+
+    public static ChatFrame error(String error) {
+        ChatFrame frame = new ChatFrame("error");
+        frame.setError(error);
+        return frame;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
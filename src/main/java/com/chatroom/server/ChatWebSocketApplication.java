@@ -0,0 +1,328 @@
+package com.chatroom.server;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.ChatListener;
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.User;
+import com.chatroom.util.LogManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.websockets.DataFrame;
+import org.glassfish.grizzly.websockets.ProtocolHandler;
+import org.glassfish.grizzly.websockets.SimpleWebSocket;
+import org.glassfish.grizzly.websockets.WebSocket;
+import org.glassfish.grizzly.websockets.WebSocketApplication;
+import org.glassfish.grizzly.websockets.WebSocketException;
+import org.glassfish.grizzly.websockets.WebSocketListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.chatroom.util.Constants.Limits.MAX_MESSAGE_LENGTH;
+import static com.chatroom.util.Constants.Server.MESSAGE_PAGE_LIMIT;
+
+/**
+ * Point d'accès WebSocket de la chatroom, servi par le même serveur Grizzly que l'API REST.
+ * <p>
+ * Une connexion persistante par client transporte l'envoi de messages, la réception,
+ * le signal de vie et les changements de présence (voir {@link ChatFrame}). L'état est
+ * celui du {@link ChatManager} : clients REST et WebSocket partagent la même chatroom.
+ * </p>
+ * <p>
+ * Comme pour le flux SSE, les diffusions et les inscriptions passent par un unique
+ * thread : les messages sont diffusés dans l'ordre des séquences et chaque trame est
+ * sérialisée une seule fois pour toutes les connexions.
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatWebSocketApplication extends WebSocketApplication implements ChatListener {
+    private static final Logger LOGGER = LogManager.getLogger(ChatWebSocketApplication.class);
+
+    private final ChatManager chatManager;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new ChatJsonModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "websocket-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Utilisateur associé à chaque connexion après la trame hello ; une connexion n'agit
+    // qu'au nom de cette instance précise, jamais d'un homonyme enregistré plus tard
+    private final Map<WebSocket, User> sessions = new ConcurrentHashMap<>();
+    // Connexions qui reçoivent la diffusion ; modifié uniquement par le thread de diffusion
+    private final Set<WebSocket> subscribers = ConcurrentHashMap.newKeySet();
+    // Dernière séquence diffusée ; lue et écrite uniquement par le thread de diffusion
+    private long lastBroadcastSequence;
+
+    /**
+     * Connexion sans dépendance au conteneur Servlet, qui expose l'envoi d'une trame déjà
+     * encodée afin qu'une diffusion ne soit encodée qu'une seule fois
+     */
+    static class ChatSocket extends SimpleWebSocket {
+        ChatSocket(ProtocolHandler protocolHandler, WebSocketListener... listeners) {
+            super(protocolHandler, listeners);
+        }
+
+        byte[] encode(String text) {
+            return toRawData(text);
+        }
+
+        void sendEncoded(byte[] frame) {
+            sendRaw(frame);
+        }
+    }
+
+    public ChatWebSocketApplication(ChatManager chatManager) {
+        this.chatManager = chatManager;
+        this.lastBroadcastSequence = chatManager.getLastSequence();
+        chatManager.addListener(this);
+    }
+
+    /**
+     * @return Le nombre de connexions WebSocket associées à un utilisateur
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public WebSocket createSocket(ProtocolHandler handler, HttpRequestPacket request, WebSocketListener... listeners) {
+        return new ChatSocket(handler, listeners);
+    }
+
+    @Override
+    public void onMessage(WebSocket socket, String text) {
+        ChatFrame frame;
+        try {
+            frame = objectMapper.readValue(text, ChatFrame.class);
+        } catch (IOException e) {
+            send(socket, ChatFrame.error("Trame invalide"));
+            return;
+        }
+        String type = frame.getType() == null ? "" : frame.getType();
+        switch (type) {
+            case "hello":
+                hello(socket, frame);
+                break;
+            case "send":
+                sendMessage(socket, frame);
+                break;
+            case "ping":
+                User user = sessions.get(socket);
+                if (user != null && !chatManager.userExists(user)) {
+                    unbind(socket, user);
+                }
+                send(socket, new ChatFrame("pong"));
+                break;
+            default:
+                send(socket, ChatFrame.error("Type de trame inconnu: " + type));
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket socket, DataFrame frame) {
+        // Le nom réservé par hello est libéré : reconnexion possible, départ annoncé aux autres
+        User user = sessions.remove(socket);
+        if (user != null) {
+            chatManager.removeUser(user);
+        }
+        dispatcher.execute(() -> subscribers.remove(socket));
+        super.onClose(socket, frame);
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        dispatcher.execute(() -> {
+            long last = chatManager.getLastSequence();
+            while (lastBroadcastSequence < last) {
+                List<Message> page = chatManager.getMessagesAfter(lastBroadcastSequence, MESSAGE_PAGE_LIMIT).getMessages();
+                if (page.isEmpty()) {
+                    lastBroadcastSequence = last;
+                    break;
+                }
+                for (Message pending : page) {
+                    broadcast(ChatFrame.message("message", pending));
+                    lastBroadcastSequence = pending.getSequence();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onUserJoined(User user) {
+        dispatcher.execute(() -> broadcast(ChatFrame.user("join", user)));
+    }
+
+    @Override
+    public void onUserLeft(User user) {
+        // Départ par une autre voie (DELETE, nettoyage des inactifs) : la connexion n'est plus
+        // associée et cesse de recevoir la diffusion, jusqu'à une nouvelle trame hello
+        List<WebSocket> orphaned = new ArrayList<>();
+        sessions.forEach((socket, owner) -> {
+            if (owner == user && unbind(socket, user)) {
+                orphaned.add(socket);
+            }
+        });
+        dispatcher.execute(() -> {
+            broadcast(ChatFrame.user("leave", user));
+            for (WebSocket socket : orphaned) {
+                if (!sessions.containsKey(socket)) {
+                    subscribers.remove(socket);
+                }
+            }
+        });
+    }
+
+    private void hello(WebSocket socket, ChatFrame frame) {
+        String username = frame.getUsername();
+        if (username == null || username.isEmpty()) {
+            send(socket, ChatFrame.error("Le nom d'utilisateur est requis"));
+            return;
+        }
+        // Les trames d'une connexion sont traitées l'une après l'autre : pas de hello concurrent
+        User current = sessions.get(socket);
+        if (current != null && chatManager.userExists(current)) {
+            send(socket, ChatFrame.error("Connexion déjà associée à l'utilisateur " + current.getUsername()));
+            return;
+        }
+        User user = chatManager.addUser(username);
+        if (user == null) {
+            send(socket, ChatFrame.error("Le nom d'utilisateur est déjà pris"));
+            return;
+        }
+        sessions.put(socket, user);
+
+        Long after = frame.getAfter();
+        dispatcher.execute(() -> {
+            send(socket, ChatFrame.user("welcome", user));
+            if (after != null) {
+                // Au-delà de la dernière séquence connue, le curseur vient d'avant un
+                // redémarrage : l'historique est rejoué depuis le début, comme getMessagesAfter
+                long cursor = after > chatManager.getLastSequence() ? 0 : after;
+                while (cursor < lastBroadcastSequence && socket.isConnected()) {
+                    MessagePage page = chatManager.getMessagesAfter(cursor, MESSAGE_PAGE_LIMIT);
+                    if (page.getMessages().isEmpty()) {
+                        break;
+                    }
+                    for (Message message : page.getMessages()) {
+                        if (message.getSequence() > lastBroadcastSequence) {
+                            break;
+                        }
+                        send(socket, ChatFrame.message("message", message));
+                    }
+                    cursor = page.getCursor();
+                }
+            }
+            if (socket.isConnected()) {
+                subscribers.add(socket);
+            }
+        });
+    }
+
+    private void sendMessage(WebSocket socket, ChatFrame frame) {
+        User user = sessions.get(socket);
+        if (user == null) {
+            send(socket, ChatFrame.error("Trame hello requise avant l'envoi de messages"));
+            return;
+        }
+        if (frame.getContent() == null) {
+            send(socket, ChatFrame.error("Le contenu est requis"));
+            return;
+        }
+        if (frame.getContent().length() > MAX_MESSAGE_LENGTH) {
+            send(socket, ChatFrame.error("Le contenu ne doit pas dépasser " + MAX_MESSAGE_LENGTH + " caractères"));
+            return;
+        }
+        if (!chatManager.userExists(user)) {
+            // Parti ou remplacé entre-temps : la connexion peut renvoyer une trame hello
+            unbind(socket, user);
+            send(socket, ChatFrame.error("Utilisateur non trouvé, trame hello requise"));
+            return;
+        }
+        if (chatManager.getRateLimiter().tryAcquire(user.getUsername(), 1) == 0) {
+            send(socket, ChatFrame.error("Trop de messages, réessayez plus tard"));
+            return;
+        }
+        Message message = chatManager.addMessage(user, frame.getContent());
+        if (message == null) {
+            unbind(socket, user);
+            send(socket, ChatFrame.error("Utilisateur non trouvé, trame hello requise"));
+            return;
+        }
+        send(socket, ChatFrame.message("ack", message));
+    }
+
+    /**
+     * Dissocie une connexion de cette instance précise d'utilisateur ; {@link User#equals}
+     * compare les noms et ne distingue pas un homonyme enregistré depuis
+     * @return true si la connexion était associée à cette instance
+     */
+    private boolean unbind(WebSocket socket, User user) {
+        boolean[] removed = new boolean[1];
+        sessions.computeIfPresent(socket, (key, owner) -> {
+            removed[0] = owner == user;
+            return removed[0] ? null : owner;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Sérialise et encode la trame une seule fois puis l'envoie à toutes les connexions abonnées
+     */
+    private void broadcast(ChatFrame frame) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String json = toJson(frame);
+        if (json == null) {
+            return;
+        }
+        byte[] encoded = null;
+        for (WebSocket subscriber : subscribers) {
+            ChatSocket socket = (ChatSocket) subscriber;
+            if (!socket.isConnected()) {
+                continue;
+            }
+            if (encoded == null) {
+                encoded = socket.encode(json);
+            }
+            try {
+                socket.sendEncoded(encoded);
+            } catch (WebSocketException e) {
+                subscribers.remove(socket);
+            }
+        }
+    }
+
+    private void send(WebSocket socket, ChatFrame frame) {
+        String json = toJson(frame);
+        if (json != null && socket.isConnected()) {
+            socket.send(json);
+        }
+    }
+
+    private String toJson(ChatFrame frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            LOGGER.log(Level.WARNING, "Impossible de sérialiser la trame " + frame.getType(), e);
+            return null;
+        }
+    }
+}
@@ -3,18 +3,41 @@ package com.chatroom.server;
 import com.chatroom.model.ChatManager;
 import com.chatroom.rest.ChatApplication;
 import com.chatroom.util.LogManager;
+import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.websockets.WebSocketAddOn;
+import org.glassfish.grizzly.websockets.WebSocketEngine;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.URI;
+import java.nio.file.Paths;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static com.chatroom.util.Constants.Persistence.DATA_DIR;
+import static com.chatroom.util.Constants.Persistence.SNAPSHOT_INTERVAL_MS;
 import static com.chatroom.util.Constants.Server.BASE_URI;
+import static com.chatroom.util.Constants.Server.COMPRESSION_MIN_BYTES;
+import static com.chatroom.util.Constants.Server.HOST;
+import static com.chatroom.util.Constants.Server.HTTP2_MAX_STREAMS;
+import static com.chatroom.util.Constants.Server.PORT;
+import static com.chatroom.util.Constants.Server.WEBSOCKET_PATH;
+import static com.chatroom.util.Constants.Threads.SELECTOR_RUNNERS;
+import static com.chatroom.util.Constants.Threads.VIRTUAL_THREADS;
+import static com.chatroom.util.Constants.Threads.WORKER_QUEUE_LIMIT;
+import static com.chatroom.util.Constants.Threads.WORKER_THREADS;
 import static com.chatroom.util.Constants.Timing.USER_EXPIRY_SECONDS;
 
 /**
@@ -29,7 +52,15 @@ import static com.chatroom.util.Constants.Timing.USER_EXPIRY_SECONDS;
  * <p>Fonctionnalités principales:</p>
  * <ul>
  *   <li>Démarrage du serveur HTTP sur le port 8081</li>
+ *   <li>Relecture de l'instantané et du journal des messages en mode durable (-Dchatroom.data.dir)</li>
+ *   <li>Écriture périodique d'un instantané en mode durable</li>
  *   <li>Enregistrement de l'application JAX-RS (endpoints REST)</li>
+ *   <li>Point d'accès WebSocket sur le même port, partageant l'état de la chatroom</li>
+ *   <li>HTTP/2 en clair (h2c) par mise à niveau d'une connexion HTTP/1.1 : un client
+ *       multiplexe ses requêtes (polling, heartbeat, envois) sur une seule connexion</li>
+ *   <li>Compression gzip des réponses JSON volumineuses, négociée via Accept-Encoding</li>
+ *   <li>Dimensionnement des threads de travail et de sélection (-Dchatroom.threads.*), ou
+ *       exécution des requêtes sur des threads virtuels</li>
  *   <li>Nettoyage périodique des utilisateurs inactifs</li>
  *   <li>Arrêt propre du serveur</li>
  * </ul>
@@ -47,19 +78,105 @@ public class RestServer {
     /**
      * Démarre le serveur HTTP Grizzly avec l'application JAX-RS.
      * @return Le serveur HTTP
+     * @throws IOException Si le journal des messages ne peut pas être relu en mode durable
      */
-    public static HttpServer startServer() {
+    public static HttpServer startServer() throws IOException {
+        if (DATA_DIR != null) {
+            LOGGER.info("Mode durable activé, dossier de données: " + DATA_DIR);
+            ChatManager.getInstance().enableJournal(Paths.get(DATA_DIR));
+            Runtime.getRuntime().addShutdownHook(new Thread(ChatManager.getInstance()::closeJournal));
+            scheduleSnapshots();
+        }
+        
         // Créer l'application JAX-RS
         final ChatApplication resourceConfig = new ChatApplication();
         
-        // Créer et démarrer le serveur HTTP
+        // Créer le serveur HTTP sans le démarrer pour y ajouter le support WebSocket
         final HttpServer server = GrizzlyHttpServerFactory.createHttpServer(
-                URI.create(BASE_URI), resourceConfig);
-                
-        LOGGER.info("Serveur HTTP Grizzly créé sur " + BASE_URI);
+                URI.create(BASE_URI), resourceConfig, false);
+        
+        for (NetworkListener listener : server.getListeners()) {
+            listener.registerAddOn(new WebSocketAddOn());
+            // Sans TLS, HTTP/2 n'est négocié que par "Upgrade: h2c" : les clients HTTP/1.1 ne voient aucune différence
+            listener.registerAddOn(new Http2AddOn(Http2Configuration.builder()
+                    .maxConcurrentStreams(HTTP2_MAX_STREAMS)
+                    .build()));
+            configureThreads(listener.getTransport());
+            
+            // Les petites réponses (polling) restent non compressées
+            CompressionConfig compression = listener.getCompressionConfig();
+            compression.setCompressionMode(CompressionConfig.CompressionMode.ON);
+            compression.setCompressionMinSize(COMPRESSION_MIN_BYTES);
+            compression.setCompressibleMimeTypes("application/json", "application/x-jackson-smile", "application/x-ndjson");
+        }
+        WebSocketEngine.getEngine().register("", WEBSOCKET_PATH,
+                new ChatWebSocketApplication(ChatManager.getInstance()));
+        
+        server.start();
+        LOGGER.info("Serveur HTTP Grizzly créé sur " + BASE_URI + " (WebSocket: " + WEBSOCKET_PATH + ", HTTP/2: h2c)");
         return server;
     }
     
+    /**
+     * Applique la configuration des threads au transport d'un listener (avant son démarrage)
+     * @param transport Le transport TCP du listener
+     */
+    private static void configureThreads(TCPNIOTransport transport) {
+        if (SELECTOR_RUNNERS > 0) {
+            transport.setSelectorRunnersCount(SELECTOR_RUNNERS);
+        }
+        
+        ExecutorService virtualThreads = VIRTUAL_THREADS ? newVirtualThreadExecutor() : null;
+        if (virtualThreads != null) {
+            transport.setWorkerThreadPool(virtualThreads);
+            LOGGER.info("Requêtes exécutées sur des threads virtuels");
+            return;
+        }
+        
+        ThreadPoolConfig workers = transport.getWorkerThreadPoolConfig();
+        if (WORKER_THREADS > 0) {
+            workers.setCorePoolSize(WORKER_THREADS).setMaxPoolSize(WORKER_THREADS);
+        }
+        workers.setQueueLimit(WORKER_QUEUE_LIMIT);
+        LOGGER.info("Threads de travail: " + workers.getMaxPoolSize() + ", file d'attente: "
+                + (workers.getQueueLimit() < 0 ? "non bornée" : workers.getQueueLimit())
+                + ", threads de sélection: " + transport.getSelectorRunnersCount());
+    }
+    
+    /**
+     * Crée un exécuteur qui lance chaque tâche sur un nouveau thread virtuel. La méthode est
+     * recherchée à l'exécution : le projet reste compilable en Java 11 et le mode n'est actif
+     * que sur une JVM qui la fournit (Java 21 ou plus).
+     * @return L'exécuteur, ou null si la JVM ne propose pas les threads virtuels
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warning("Threads virtuels indisponibles sur Java " + System.getProperty("java.version")
+                    + ", utilisation du pool de threads de travail");
+            return null;
+        }
+    }
+    
+    /**
+     * Planifie l'écriture périodique d'un instantané (et la compaction du journal)
+     */
+    private static void scheduleSnapshots() {
+        Timer timer = new Timer("chat-snapshot", true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    ChatManager.getInstance().writeSnapshot();
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Erreur lors de l'écriture de l'instantané", e);
+                }
+            }
+        }, SNAPSHOT_INTERVAL_MS, SNAPSHOT_INTERVAL_MS);
+    }
+    
     /**
      * Méthode principale qui démarre le serveur
      * @param args Arguments de ligne de commande (non utilisés)
@@ -67,9 +184,13 @@ public class RestServer {
      */
     public static void main(String[] args) throws IOException {
         LOGGER.info("Démarrage du serveur REST...");
+        long startNanos = System.nanoTime();
         
        
         final HttpServer server = startServer();
+        LOGGER.info("Serveur prêt à répondre en "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms ("
+                + ChatManager.getInstance().getMessageCount() + " message(s) en mémoire)");
         
        
         LOGGER.info("Configuration du nettoyage des utilisateurs inactifs");
@@ -96,6 +217,8 @@ public class RestServer {
         LOGGER.info("  * " + serverUrl + "/users/{username} (DELETE)");
         LOGGER.info("  * " + serverUrl + "/users/{username}/heartbeat (PUT)");
         LOGGER.info("  * " + serverUrl + "/messages (GET, POST)");
+        LOGGER.info("  * " + serverUrl + "/stream (GET, Server-Sent Events)");
+        LOGGER.info("  * ws://" + HOST + ":" + PORT + WEBSOCKET_PATH + " (WebSocket)");
         LOGGER.info("Appuyez sur Entrée pour arrêter le serveur...");
         
         
@@ -110,6 +233,7 @@ public class RestServer {
             
            
             server.shutdownNow();
+            ChatManager.getInstance().closeJournal();
             LOGGER.info("Serveur arrêté.");
             System.out.println("Serveur arrêté.");
         } catch (IOException e) {
@@ -1,24 +1,57 @@
 package com.chatroom.util;
 
+import com.chatroom.model.BatchResult;
+import com.chatroom.model.ChatJsonModule;
 import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.MessageRequest;
+import com.chatroom.model.RegisterRequest;
+import com.chatroom.model.SyncRequest;
+import com.chatroom.model.SyncResponse;
 import com.chatroom.model.User;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 import static com.chatroom.util.Constants.Server.API_BASE_URL;
+import static com.chatroom.util.Constants.Server.HTTP2;
+import static com.chatroom.util.Constants.Server.WIRE_FORMAT;
+import static com.chatroom.util.Constants.Threads.CLIENT_THREADS;
+import static com.chatroom.util.Constants.Timing.CONNECTION_TIMEOUT_MS;
+import static com.chatroom.util.Constants.Timing.READ_TIMEOUT_MS;
 
 /**
  * Utilitaire pour les appels à l'API REST du serveur de chat.
@@ -27,13 +60,101 @@ import static com.chatroom.util.Constants.Server.API_BASE_URL;
  * implémente les méthodes nécessaires pour enregistrer des utilisateurs,
  * envoyer des messages et récupérer les données du chat.
  * </p>
+ * <p>
+ * Chaque appel existe en deux variantes : <code>xxxAsync</code> renvoie immédiatement un
+ * {@link CompletableFuture}, sans bloquer le thread appelant, et <code>xxx</code> attend
+ * ce même résultat. Les réponses sont décodées et les futurs complétés sur un petit pool
+ * de threads borné (<code>-Dchatroom.threads.client</code>) ; une requête en attente
+ * (long-polling, synchronisation) n'occupe aucun thread. Annuler un futur abandonne
+ * l'échange HTTP correspondant.
+ * </p>
+ * <p>
+ * Tous les appels passent par un unique {@link HttpClient} : les connexions HTTP/1.1 sont
+ * conservées (keep-alive) et réutilisées d'un appel à l'autre au lieu d'être ouvertes à
+ * chaque requête. L'ouverture d'une connexion est limitée à
+ * {@link Constants.Timing#CONNECTION_TIMEOUT_MS}, et chaque appel, décodage compris, à
+ * {@link Constants.Timing#READ_TIMEOUT_MS}, augmenté du délai d'attente demandé au serveur
+ * pour le long-polling et la synchronisation ; au-delà, le futur échoue avec une
+ * {@link HttpTimeoutException}. Les corps sont décodés par Jackson directement depuis le
+ * flux de la réponse.
+ * </p>
+ * <p>
+ * Les lectures conservent l'ETag et le résultat décodé des dernières réponses reçues, et
+ * renvoient l'ETag dans <code>If-None-Match</code> : si rien n'a changé, le serveur répond
+ * <code>304 Not Modified</code> sans corps et le résultat conservé est réutilisé (les
+ * listes renvoyées sont donc partagées et non modifiables).
+ * </p>
+ * <p>
+ * Toutes les requêtes annoncent <code>Accept-Encoding: gzip</code> ; les réponses
+ * volumineuses (historique complet) sont alors reçues compressées et décompressées ici.
+ * </p>
+ * <p>
+ * Avec <code>-Dchatroom.wireFormat=smile</code>, les corps sont échangés au format binaire
+ * Smile au lieu de JSON (même modèle, encodage plus compact).
+ * </p>
+ * <p>
+ * Avec <code>-Dchatroom.http2=true</code>, le client passe en HTTP/2 : la première
+ * connexion est mise à niveau (<code>Upgrade: h2c</code>) puis toutes les requêtes, y
+ * compris un long-polling en cours, y sont multiplexées.
+ * </p>
  * 
  * @author ESP-DIC3
  * @version 1.0
  */
 public class ApiClient {
     private static final Logger LOGGER = LogManager.getLogger(ApiClient.class);
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final boolean SMILE = "smile".equalsIgnoreCase(WIRE_FORMAT);
+    private static final String MEDIA_TYPE = SMILE ? "application/x-jackson-smile" : "application/json";
+    // Le flux de la réponse est vidé puis fermé ici, pour que la connexion retourne dans le pool
+    private static final ObjectMapper OBJECT_MAPPER = (SMILE ? new ObjectMapper(new SmileFactory()) : new ObjectMapper())
+            .registerModule(new ChatJsonModule())
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final ObjectReader USER = OBJECT_MAPPER.readerFor(User.class);
+    private static final ObjectReader USERS = OBJECT_MAPPER.readerFor(new TypeReference<List<User>>(){});
+    private static final ObjectReader MESSAGE = OBJECT_MAPPER.readerFor(Message.class);
+    private static final ObjectReader MESSAGES = OBJECT_MAPPER.readerFor(new TypeReference<List<Message>>(){});
+    private static final ObjectReader MESSAGE_PAGE = OBJECT_MAPPER.readerFor(MessagePage.class);
+    private static final ObjectReader SYNC_RESPONSE = OBJECT_MAPPER.readerFor(SyncResponse.class);
+    private static final ObjectReader BATCH_RESULTS = OBJECT_MAPPER.readerFor(new TypeReference<List<BatchResult>>(){});
+    private static final int MAX_VALIDATORS = 32;
+    
+    // Threads du client : tâches internes du HttpClient, décodage des réponses et suites des futurs
+    private static final ExecutorService EXECUTOR = newExecutor();
+    
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HTTP2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(CONNECTION_TIMEOUT_MS))
+            .executor(EXECUTOR)
+            .build();
+    
+    // Dernier ETag et résultat reçus par chemin, du plus ancien au plus récemment utilisé
+    private static final Map<String, Validated> VALIDATORS = Collections.synchronizedMap(
+            new LinkedHashMap<String, Validated>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Validated> eldest) {
+                    return size() > MAX_VALIDATORS;
+                }
+            });
+    
+    /**
+     * Résultat décodé conservé avec son ETag
+     */
+    private static final class Validated {
+        final String etag;
+        final Object value;
+        
+        Validated(String etag, Object value) {
+            this.etag = etag;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * Traitement d'une réponse reçue : lecture du corps et conversion du statut
+     */
+    private interface ResponseHandler<T> {
+        T handle(HttpResponse<InputStream> response) throws IOException;
+    }
     
     /**
      * Enregistre un utilisateur auprès du serveur
@@ -43,61 +164,31 @@ public class ApiClient {
      * @throws IOException En cas d'erreur de communication avec le serveur
      */
     public static User registerUser(String username) throws IOException {
+        return await(registerUserAsync(username));
+    }
+    
+    /**
+     * Enregistre un utilisateur auprès du serveur, sans bloquer
+     * 
+     * @param username Nom d'utilisateur à enregistrer
+     * @return L'utilisateur enregistré, ou une {@link IOException} (nom déjà utilisé, erreur
+     *         de communication)
+     */
+    public static CompletableFuture<User> registerUserAsync(String username) {
         LOGGER.info("Tentative d'inscription de l'utilisateur: " + username);
-        String requestBody = "{\"username\":\"" + username + "\"}";
-        
-        URL url = new URL(API_BASE_URL + "/users");
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
-        
-        
-        try (OutputStream os = connection.getOutputStream()) {
-            byte[] input = requestBody.getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
-        
-        int statusCode = connection.getResponseCode();
-        LOGGER.info("Code de statut reçu: " + statusCode);
-        
-        if (statusCode == 201) {
-          
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
-                }
-                
-                return OBJECT_MAPPER.readValue(response.toString(), User.class);
-            }
-        } else {
-        
-            StringBuilder response = new StringBuilder();
-            InputStream stream = connection.getErrorStream();
-            if (stream == null) {
-                stream = connection.getInputStream();
-            }
+        return call(post("/users", new RegisterRequest(username)), 0, response -> {
+            int statusCode = response.statusCode();
+            LOGGER.info("Code de statut reçu: " + statusCode);
             
-            if (stream != null) {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(stream, "utf-8"))) {
-                    String responseLine;
-                    while ((responseLine = br.readLine()) != null) {
-                        response.append(responseLine.trim());
-                    }
-                }
-            } else {
-                response.append(connection.getResponseMessage());
-            }
-            
-            if (statusCode == 409) {
+            if (statusCode == 201) {
+                return read(response, USER);
+            } else if (statusCode == 409) {
+                discard(response);
                 throw new IOException("Erreur d'inscription: Le nom d'utilisateur '" + username + "' est déjà utilisé.");
             } else {
-                throw new IOException("Erreur d'inscription (" + statusCode + "): " + response.toString());
+                throw new IOException("Erreur d'inscription (" + statusCode + "): " + text(response));
             }
-        }
+        });
     }
     
     /**
@@ -109,113 +200,206 @@ public class ApiClient {
      * @throws IOException En cas d'erreur de communication avec le serveur
      */
     public static Message sendMessage(String sender, String content) throws IOException {
-        Map<String, String> messageInfo = new HashMap<>();
-        messageInfo.put("sender", sender);
-        messageInfo.put("content", content);
-        
-        String requestBody = OBJECT_MAPPER.writeValueAsString(messageInfo);
-        
-        URL url = new URL(API_BASE_URL + "/messages");
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
-        try (OutputStream os = connection.getOutputStream()) {
-            byte[] input = requestBody.getBytes("utf-8");
-            os.write(input, 0, input.length);
+        return await(sendMessageAsync(sender, content));
+    }
+    
+    /**
+     * Envoie un message au serveur, sans bloquer
+     * 
+     * @param sender Expéditeur du message
+     * @param content Contenu du message
+     * @return Le message créé et enregistré
+     */
+    public static CompletableFuture<Message> sendMessageAsync(String sender, String content) {
+        return call(post("/messages", new MessageRequest(sender, content)), 0, response -> {
+            if (response.statusCode() == 201) {
+                return read(response, MESSAGE);
+            } else {
+                throw new IOException("Erreur d'envoi de message (" + response.statusCode() + "): " + text(response));
+            }
+        });
+    }
+    
+    /**
+     * Envoie plusieurs messages d'un même expéditeur en une seule requête
+     * 
+     * @param sender Expéditeur des messages
+     * @param contents Contenus des messages, dans l'ordre d'envoi
+     * @return Le résultat de chaque message, dans le même ordre
+     * @throws IOException En cas d'erreur de communication avec le serveur ou de lot refusé
+     */
+    public static List<BatchResult> sendMessages(String sender, List<String> contents) throws IOException {
+        return await(sendMessagesAsync(sender, contents));
+    }
+    
+    /**
+     * Envoie plusieurs messages d'un même expéditeur en une seule requête, sans bloquer
+     * 
+     * @param sender Expéditeur des messages
+     * @param contents Contenus des messages, dans l'ordre d'envoi
+     * @return Le résultat de chaque message, dans le même ordre
+     */
+    public static CompletableFuture<List<BatchResult>> sendMessagesAsync(String sender, List<String> contents) {
+        List<MessageRequest> batch = new ArrayList<>(contents.size());
+        for (String content : contents) {
+            batch.add(new MessageRequest(sender, content));
         }
         
-        int statusCode = connection.getResponseCode();
-        if (statusCode == 201) {
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
-                }
-                
-                return OBJECT_MAPPER.readValue(response.toString(), Message.class);
-            }
-        } else {
-          
-            StringBuilder errorMsg = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(
-                            connection.getErrorStream() != null ? 
-                                    connection.getErrorStream() : 
-                                    connection.getInputStream(), "utf-8"))) {
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    errorMsg.append(responseLine.trim());
-                }
+        return call(post("/messages/batch", batch), 0, response -> {
+            if (response.statusCode() == 200) {
+                return read(response, BATCH_RESULTS);
+            } else {
+                throw new IOException("Erreur d'envoi du lot (" + response.statusCode() + "): " + text(response));
             }
-            
-            throw new IOException("Erreur d'envoi de message (" + statusCode + "): " + errorMsg.toString());
-        }
+        });
     }
     
     /**
      * Récupère les messages depuis un certain timestamp
      * 
      * @param since Timestamp depuis lequel récupérer les messages
-     * @return Liste des messages récupérés
+     * @return Liste des messages récupérés (non modifiable)
      * @throws IOException En cas d'erreur de communication avec le serveur
      */
     public static List<Message> getMessages(long since) throws IOException {
-        URL url = new URL(API_BASE_URL + "/messages?since=" + since);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        
-        int statusCode = connection.getResponseCode();
-        if (statusCode == 200) {
-           
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
+        return await(getMessagesAsync(since));
+    }
+    
+    /**
+     * Récupère les messages depuis un certain timestamp, sans bloquer
+     * 
+     * @param since Timestamp depuis lequel récupérer les messages
+     * @return Liste des messages récupérés (non modifiable)
+     */
+    public static CompletableFuture<List<Message>> getMessagesAsync(long since) {
+        return getValidated("/messages?since=" + since, 0, MESSAGES,
+                "Erreur lors de la récupération des messages");
+    }
+    
+    /**
+     * Récupère la page de messages suivant un curseur
+     * 
+     * @param cursor Curseur renvoyé par la page précédente (0 pour le début de l'historique)
+     * @return La page de messages et le curseur suivant
+     * @throws IOException En cas d'erreur de communication avec le serveur
+     */
+    public static MessagePage getMessagesAfter(long cursor) throws IOException {
+        return getMessagesAfter(cursor, 0);
+    }
+    
+    /**
+     * Récupère la page de messages suivant un curseur en long-polling : si aucun message
+     * ne suit le curseur, le serveur attend le prochain message au plus waitMillis millisecondes.
+     * 
+     * @param cursor Curseur renvoyé par la page précédente (0 pour le début de l'historique)
+     * @param waitMillis Délai d'attente maximum côté serveur (0 pour une réponse immédiate)
+     * @return La page de messages (éventuellement vide) et le curseur suivant
+     * @throws IOException En cas d'erreur de communication avec le serveur
+     */
+    public static MessagePage getMessagesAfter(long cursor, long waitMillis) throws IOException {
+        return await(getMessagesAfterAsync(cursor, waitMillis));
+    }
+    
+    /**
+     * Récupère la page de messages suivant un curseur en long-polling, sans bloquer
+     * 
+     * @param cursor Curseur renvoyé par la page précédente (0 pour le début de l'historique)
+     * @param waitMillis Délai d'attente maximum côté serveur (0 pour une réponse immédiate)
+     * @return La page de messages (éventuellement vide) et le curseur suivant
+     */
+    public static CompletableFuture<MessagePage> getMessagesAfterAsync(long cursor, long waitMillis) {
+        return getValidated("/messages?after=" + cursor + "&wait=" + waitMillis, waitMillis, MESSAGE_PAGE,
+                "Erreur lors de la récupération des messages");
+    }
+    
+    /**
+     * Récupère au plus limit messages suivant un curseur, sans attente ni blocage
+     * 
+     * @param cursor Séquence après laquelle lire (0 pour le début de l'historique)
+     * @param limit Nombre maximum de messages de la page
+     * @return La page de messages (éventuellement vide) et le curseur suivant
+     */
+    public static CompletableFuture<MessagePage> getMessagePageAsync(long cursor, int limit) {
+        return getValidated("/messages?after=" + cursor + "&limit=" + limit + "&wait=0", 0, MESSAGE_PAGE,
+                "Erreur lors de la récupération des messages");
+    }
+    
+    /**
+     * Récupère au plus limit messages précédant une séquence, sans bloquer. Les séquences
+     * étant contiguës, la page qui les contient est lue depuis la séquence before - limit ;
+     * les messages retirés de l'historique du serveur ne sont plus renvoyés.
+     * 
+     * @param before Séquence du plus ancien message déjà connu
+     * @param limit Nombre maximum de messages à récupérer
+     * @return Les messages de séquence inférieure à before, du plus ancien au plus récent
+     *         (liste vide s'il n'y en a plus)
+     */
+    public static CompletableFuture<List<Message>> getMessagesBeforeAsync(long before, int limit) {
+        return getMessagePageAsync(Math.max(0, before - 1 - limit), limit).thenApply(page -> {
+            List<Message> older = new ArrayList<>(page.getMessages().size());
+            for (Message message : page.getMessages()) {
+                if (message.getSequence() < before) {
+                    older.add(message);
                 }
-                
-                
-                String json = response.toString();
-                return OBJECT_MAPPER.readValue(json, new TypeReference<List<Message>>(){});
             }
-        } else {
-            throw new IOException("Erreur lors de la récupération des messages: " + connection.getResponseMessage());
-        }
+            return older;
+        });
+    }
+    
+    /**
+     * Synchronise le client en une seule requête : récupère les messages qui suivent le
+     * curseur et, si elle a changé, la liste des utilisateurs, tout en maintenant la
+     * session active. Si rien n'a changé, le serveur attend au plus waitMillis millisecondes.
+     * 
+     * @param username Nom de l'utilisateur connecté
+     * @param cursor Curseur renvoyé par la synchronisation précédente (0 pour le début de l'historique)
+     * @param presenceVersion Version de présence renvoyée par la synchronisation précédente (-1 au départ)
+     * @param waitMillis Délai d'attente maximum côté serveur (0 pour une réponse immédiate)
+     * @return Les nouveaux messages, le curseur suivant et la présence si elle a changé
+     * @throws IOException En cas d'erreur de communication avec le serveur
+     */
+    public static SyncResponse sync(String username, long cursor, long presenceVersion, long waitMillis) throws IOException {
+        return await(syncAsync(username, cursor, presenceVersion, waitMillis));
+    }
+    
+    /**
+     * Synchronise le client en une seule requête, sans bloquer : l'attente côté serveur
+     * n'occupe aucun thread du client
+     * 
+     * @param username Nom de l'utilisateur connecté
+     * @param cursor Curseur renvoyé par la synchronisation précédente (0 pour le début de l'historique)
+     * @param presenceVersion Version de présence renvoyée par la synchronisation précédente (-1 au départ)
+     * @param waitMillis Délai d'attente maximum côté serveur (0 pour une réponse immédiate)
+     * @return Les nouveaux messages, le curseur suivant et la présence si elle a changé
+     */
+    public static CompletableFuture<SyncResponse> syncAsync(String username, long cursor, long presenceVersion, long waitMillis) {
+        return call(post("/sync", new SyncRequest(username, cursor, presenceVersion, waitMillis)), waitMillis, response -> {
+            if (response.statusCode() == 200) {
+                return read(response, SYNC_RESPONSE);
+            } else {
+                throw new IOException("Erreur de synchronisation (" + response.statusCode() + "): " + text(response));
+            }
+        });
     }
     
     /**
      * Récupère la liste des utilisateurs connectés
      * 
-     * @return Liste des utilisateurs
+     * @return Liste des utilisateurs (non modifiable), vide si le serveur répond par une erreur
      * @throws IOException En cas d'erreur de communication avec le serveur
      */
     public static List<User> getUsers() throws IOException {
-        URL url = new URL(API_BASE_URL + "/users");
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        
-        int statusCode = connection.getResponseCode();
-        if (statusCode == 200) {
-           
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream(), "utf-8"))) {
-                StringBuilder response = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
-                }
-                
-               
-                String json = response.toString();
-                return OBJECT_MAPPER.readValue(json, new TypeReference<List<User>>(){});
-            }
-        } else {
-            return new ArrayList<>(); 
-        }
+        return await(getUsersAsync());
+    }
+    
+    /**
+     * Récupère la liste des utilisateurs connectés, sans bloquer
+     * 
+     * @return Liste des utilisateurs (non modifiable), vide si le serveur répond par une erreur
+     */
+    public static CompletableFuture<List<User>> getUsersAsync() {
+        return ApiClient.<List<User>>getValidated("/users", 0, USERS, null)
+                .thenApply(users -> users != null ? users : Collections.emptyList());
     }
     
     /**
@@ -225,10 +409,274 @@ public class ApiClient {
      * @throws IOException En cas d'erreur de communication avec le serveur
      */
     public static void sendHeartbeat(String username) throws IOException {
-        URL url = new URL(API_BASE_URL + "/users/" + username + "/heartbeat");
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("PUT");
-        connection.setDoOutput(true);
-        connection.getResponseCode();
+        await(sendHeartbeatAsync(username));
+    }
+    
+    /**
+     * Envoie un signal de vie au serveur, sans bloquer
+     * 
+     * @param username Nom d'utilisateur à maintenir actif
+     * @return Complété à la réception de la réponse
+     */
+    public static CompletableFuture<Void> sendHeartbeatAsync(String username) {
+        HttpRequest.Builder request = request("/users/" + pathSegment(username) + "/heartbeat")
+                .PUT(HttpRequest.BodyPublishers.noBody());
+        return call(request, 0, response -> {
+            discard(response);
+            return null;
+        });
+    }
+    
+    /**
+     * Effectue une lecture conditionnelle : renvoie l'ETag de la dernière réponse reçue pour
+     * ce chemin dans <code>If-None-Match</code> et réutilise son résultat si le serveur
+     * répond <code>304 Not Modified</code>
+     * 
+     * @param path Chemin de la ressource, relatif à l'URL de l'API
+     * @param waitMillis Délai d'attente demandé au serveur, ajouté au délai de l'appel
+     * @param reader Le lecteur du type attendu
+     * @param error Message de l'exception levée si le serveur répond par une erreur, ou null
+     *              pour renvoyer null dans ce cas
+     * @return Le résultat à jour
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> getValidated(String path, long waitMillis, ObjectReader reader, String error) {
+        Validated validated = VALIDATORS.get(path);
+        HttpRequest.Builder request = request(path).GET();
+        if (validated != null) {
+            request.header("If-None-Match", validated.etag);
+        }
+        
+        return call(request, waitMillis, response -> {
+            int statusCode = response.statusCode();
+            if (statusCode == 304 && validated != null) {
+                discard(response);
+                return (T) validated.value;
+            } else if (statusCode == 200) {
+                T value = read(response, reader);
+                if (value instanceof List) {
+                    value = (T) Collections.unmodifiableList((List<?>) value);
+                }
+                String etag = response.headers().firstValue("ETag").orElse(null);
+                if (etag != null) {
+                    VALIDATORS.put(path, new Validated(etag, value));
+                }
+                return value;
+            } else if (error != null) {
+                throw new IOException(error + " (" + statusCode + "): " + text(response));
+            } else {
+                LOGGER.warning("Réponse " + statusCode + " pour " + path + ": " + text(response));
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * Envoie une requête sans bloquer puis traite sa réponse sur le pool du client.
+     * <p>
+     * L'appel entier, décodage compris, est borné par {@link Constants.Timing#READ_TIMEOUT_MS}
+     * augmenté de waitMillis. Si le futur renvoyé est annulé ou expire, l'échange HTTP est
+     * abandonné, et une réponse arrivée entre-temps est fermée sans être lue.
+     * </p>
+     * <p>
+     * Le {@link HttpClient} de Java 11 ignore l'annulation des futurs de
+     * <code>sendAsync</code> : l'attente des en-têtes est donc bornée par le délai de la
+     * requête elle-même, et un corps en cours de lecture est fermé, ce qui interrompt la
+     * lecture et libère la connexion et le thread du pool.
+     * </p>
+     * 
+     * @param request La requête, sans délai
+     * @param waitMillis Délai d'attente demandé au serveur, ajouté au délai de l'appel
+     * @param handler Le traitement de la réponse
+     * @return Le résultat du traitement
+     */
+    private static <T> CompletableFuture<T> call(HttpRequest.Builder request, long waitMillis, ResponseHandler<T> handler) {
+        if (request == null) {
+            return CompletableFuture.failedFuture(new IOException("Corps de la requête impossible à encoder"));
+        }
+        long timeoutMillis = waitMillis + READ_TIMEOUT_MS;
+        HttpRequest built = request.timeout(Duration.ofMillis(timeoutMillis)).build();
+        
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+                HTTP_CLIENT.sendAsync(built, HttpResponse.BodyHandlers.ofInputStream());
+        // Futur propre au client : celui du HttpClient ne se laisse pas annuler par l'appelant
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Réponse en cours de traitement : publiée avant de vérifier l'état du futur, pour
+        // qu'une expiration concurrente la voie et ferme son corps
+        AtomicReference<HttpResponse<InputStream>> received = new AtomicReference<>();
+        exchange.whenCompleteAsync((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                return;
+            }
+            received.set(response);
+            if (result.isDone()) {
+                close(response);
+            } else {
+                try {
+                    result.complete(handler.handle(response));
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }, EXECUTOR);
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
+                HttpResponse<InputStream> response = received.get();
+                if (response != null) {
+                    close(response);
+                }
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Attend le résultat d'un appel ; l'interruption du thread appelant annule l'appel
+     * 
+     * @param future Le futur d'un appel
+     * @return Son résultat
+     * @throws IOException L'erreur de l'appel, ou une {@link HttpTimeoutException} si son délai est dépassé
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Requête interrompue");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TimeoutException) {
+                throw new HttpTimeoutException("Délai de réponse dépassé");
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    /**
+     * Prépare une requête au format d'échange du client, qui accepte les réponses
+     * compressées en gzip
+     * 
+     * @param path Chemin de la ressource, relatif à l'URL de l'API
+     * @return La requête, sans méthode
+     */
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(API_BASE_URL + path))
+                .header("Accept", MEDIA_TYPE)
+                .header("Accept-Encoding", "gzip");
+    }
+    
+    /**
+     * Encode une valeur (un nom d'utilisateur) pour l'insérer comme segment d'un chemin
+     * 
+     * @param value La valeur
+     * @return La valeur encodée, espaces compris
+     */
+    private static String pathSegment(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+    
+    /**
+     * @param path Chemin de la ressource, relatif à l'URL de l'API
+     * @param entity Corps de la requête à encoder
+     * @return La requête POST, ou null si le corps ne peut pas être encodé
+     */
+    private static HttpRequest.Builder post(String path, Object entity) {
+        try {
+            return request(path)
+                    .header("Content-Type", MEDIA_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(OBJECT_MAPPER.writeValueAsBytes(entity)));
+        } catch (JsonProcessingException e) {
+            LOGGER.warning("Impossible d'encoder " + entity + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Décode le corps d'une réponse directement depuis son flux
+     * 
+     * @param response La réponse
+     * @param reader Le lecteur du type attendu
+     * @return La valeur décodée
+     * @throws IOException En cas d'erreur de lecture ou de décodage
+     */
+    private static <T> T read(HttpResponse<InputStream> response, ObjectReader reader) throws IOException {
+        try (InputStream in = body(response)) {
+            T value = reader.readValue(in);
+            // Lire jusqu'à la fin (et la fin du flux gzip) avant de fermer, pour conserver la connexion
+            in.transferTo(OutputStream.nullOutputStream());
+            return value;
+        }
+    }
+    
+    /**
+     * @param response Une réponse d'erreur
+     * @return Son corps, ou son statut si le corps est vide
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static String text(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = body(response)) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.isEmpty() ? "HTTP " + response.statusCode() : text;
+        }
+    }
+    
+    /**
+     * Lit et ignore le corps d'une réponse, pour que sa connexion retourne dans le pool
+     * 
+     * @param response La réponse
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static void discard(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+    
+    /**
+     * Ferme le corps d'une réponse abandonnée
+     * 
+     * @param response La réponse
+     */
+    private static void close(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            LOGGER.fine("Fermeture d'une réponse abandonnée: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * @param response La réponse
+     * @return Le flux de son corps, décompressé si nécessaire
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static InputStream body(HttpResponse<InputStream> response) throws IOException {
+        if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(null))) {
+            return new GZIPInputStream(response.body());
+        }
+        return response.body();
+    }
+    
+    /**
+     * @return Le pool borné du client, dont les threads démons s'arrêtent après une minute d'inactivité
+     */
+    private static ExecutorService newExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(CLIENT_THREADS, CLIENT_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "chat-api-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 }
@@ -25,6 +25,19 @@ public final class Constants {
         public static final String BASE_URI = "http://" + HOST + ":" + PORT + "/";
         public static final String API_PATH = "chat";
         public static final String API_BASE_URL = BASE_URI + API_PATH;
+        public static final int MESSAGE_PAGE_LIMIT = 500;
+        public static final int MESSAGE_BATCH_LIMIT = 500;
+        public static final String WEBSOCKET_PATH = "/" + API_PATH + "/ws";
+        // Taille minimale d'une réponse JSON compressée en gzip (si le client l'accepte)
+        public static final int COMPRESSION_MIN_BYTES = Integer.getInteger("chatroom.compression.minBytes", 1024);
+        // Nombre d'arrivées et départs conservés pour les deltas de présence
+        public static final int PRESENCE_LOG_SIZE = Integer.getInteger("chatroom.presence.logSize", 1024);
+        // Format des échanges du client : "json" (par défaut) ou "smile" (binaire, plus compact)
+        public static final String WIRE_FORMAT = System.getProperty("chatroom.wireFormat", "json");
+        // Le client passe par HTTP/2 en clair (h2c) : une seule connexion multiplexée vers le serveur
+        public static final boolean HTTP2 = Boolean.getBoolean("chatroom.http2");
+        // Nombre maximum de requêtes HTTP/2 simultanées sur une connexion
+        public static final int HTTP2_MAX_STREAMS = Integer.getInteger("chatroom.http2.maxStreams", 100);
     }
     
     /**
@@ -51,5 +64,91 @@ public final class Constants {
         public static final int CONNECTION_TIMEOUT_MS = 5000;
         public static final int READ_TIMEOUT_MS = 5000;
         public static final int USER_EXPIRY_SECONDS = 30;
+        public static final int LONG_POLL_WAIT_MS = 25000;
+        public static final int LONG_POLL_MAX_WAIT_MS = 60000;
+        // Une synchronisation vaut signal de vie : l'attente doit rester sous le délai d'expiration
+        public static final int SYNC_MAX_WAIT_MS = 25000;
+    }
+    
+    /**
+     * Limites de rétention de l'historique des messages (0 pour désactiver une limite).
+     * Chaque valeur peut être surchargée par une propriété système (-Dchatroom.retention.*).
+     */
+    public static final class Retention {
+        public static final int MAX_MESSAGES = Integer.getInteger("chatroom.retention.maxMessages", 100_000);
+        public static final long MAX_AGE_MS = Long.getLong("chatroom.retention.maxAgeMs", 7L * 24 * 60 * 60 * 1000);
+        public static final long MAX_BYTES = Long.getLong("chatroom.retention.maxBytes", 64L * 1024 * 1024);
+    }
+    
+    /**
+     * Threads du serveur Grizzly (0 ou négatif pour garder la valeur par défaut de Grizzly) et du client.
+     * Chaque valeur peut être surchargée par une propriété système (-Dchatroom.threads.*).
+     */
+    public static final class Threads {
+        // Threads de travail qui exécutent les requêtes (Jersey)
+        public static final int WORKER_THREADS = Integer.getInteger("chatroom.threads.workers", 0);
+        // Requêtes en attente d'un thread de travail (-1 pour une file non bornée)
+        public static final int WORKER_QUEUE_LIMIT = Integer.getInteger("chatroom.threads.queueLimit", -1);
+        // Threads de sélection qui gèrent les entrées/sorties réseau
+        public static final int SELECTOR_RUNNERS = Integer.getInteger("chatroom.threads.selectors", 0);
+        // Exécute chaque requête sur un thread virtuel (Java 21 ou plus) au lieu du pool de travail
+        public static final boolean VIRTUAL_THREADS = Boolean.getBoolean("chatroom.threads.virtual");
+        // Côté client : threads qui décodent les réponses de l'API et complètent les appels asynchrones
+        public static final int CLIENT_THREADS = Math.max(1, Integer.getInteger("chatroom.threads.client", 4));
+    }
+    
+    /**
+     * Limitation de débit et contrôle d'admission de l'API (0 pour désactiver une limite).
+     * Chaque valeur peut être surchargée par une propriété système (-Dchatroom.limits.*).
+     */
+    public static final class Limits {
+        // Débit soutenu de messages par utilisateur, et rafale tolérée
+        public static final double MESSAGES_PER_SECOND = Double.parseDouble(System.getProperty("chatroom.limits.messagesPerSecond", "20"));
+        public static final int MESSAGE_BURST = Integer.getInteger("chatroom.limits.messageBurst", 40);
+        // Requêtes traitées simultanément au-delà desquelles le serveur répond 503
+        public static final int MAX_IN_FLIGHT = Integer.getInteger("chatroom.limits.maxInFlight", 256);
+        public static final int RETRY_AFTER_SECONDS = 1;
+        // Longueur maximale du contenu d'un message, bornée pour qu'un message tienne dans une
+        // région du journal durable (au plus 3 octets UTF-8 par caractère)
+        public static final int MAX_MESSAGE_LENGTH = (int) Math.min(
+                Integer.getInteger("chatroom.limits.maxMessageLength", 10_000),
+                Persistence.JOURNAL_REGION_BYTES / 4);
+        // Import en bloc de l'historique (POST /chat/messages/import) : désactivé par défaut,
+        // et nombre maximum de messages par requête
+        public static final boolean IMPORT_ENABLED = Boolean.getBoolean("chatroom.limits.importEnabled");
+        public static final int IMPORT_MAX_MESSAGES = Integer.getInteger("chatroom.limits.importMaxMessages", 5_000);
+    }
+    
+    /**
+     * Mode durable : si un dossier de données est fourni (-Dchatroom.data.dir=...), l'historique
+     * est journalisé sur disque, un instantané est écrit périodiquement et le tout est relu
+     * au démarrage. Sans dossier, tout reste en mémoire.
+     */
+    public static final class Persistence {
+        public static final String DATA_DIR = System.getProperty("chatroom.data.dir");
+        public static final String JOURNAL_FILE = "messages.journal";
+        public static final String SNAPSHOT_FILE = "chat.snapshot";
+        public static final long SNAPSHOT_INTERVAL_MS = Long.getLong("chatroom.snapshot.intervalMs", 5 * 60 * 1000);
+        public static final long JOURNAL_REGION_BYTES = Long.getLong("chatroom.journal.regionBytes", 64L * 1024 * 1024);
+        public static final long FSYNC_INTERVAL_MS = Long.getLong("chatroom.journal.fsyncIntervalMs", 20);
+    }
+    
+    /**
+     * Fil de discussion du client graphique : seuls les messages les plus proches de la zone
+     * affichée sont conservés en mémoire, les autres sont relus auprès du serveur au défilement.
+     * Chaque valeur peut être surchargée par une propriété système (-Dchatroom.client.*).
+     */
+    public static final class Client {
+        // Nombre maximum de messages conservés dans le fil
+        public static final int TRANSCRIPT_CAPACITY = Math.max(200, Integer.getInteger("chatroom.client.transcriptCapacity", 2000));
+        // Messages relus par requête en remontant ou redescendant dans l'historique
+        public static final int HISTORY_PAGE_SIZE = Math.max(10, Integer.getInteger("chatroom.client.historyPageSize", 100));
+        // Intervalle minimal entre deux mises à jour du fil : les messages reçus entre-temps sont affichés ensemble
+        public static final int FRAME_MS = Math.max(0, Integer.getInteger("chatroom.client.frameMs", 16));
+        // Sonde de la file d'attente de l'EDT (0 pour la désactiver) et période de ses rapports dans les logs
+        public static final int EDT_PROBE_INTERVAL_MS = Integer.getInteger("chatroom.client.edtProbeMs", 100);
+        public static final int EDT_REPORT_INTERVAL_MS = Integer.getInteger("chatroom.client.edtReportMs", 10000);
+        // Attente au-delà de laquelle le rapport est journalisé en INFO (FINE sinon)
+        public static final int EDT_SLOW_MS = Integer.getInteger("chatroom.client.edtSlowMs", 50);
     }
 }
@@ -0,0 +1,222 @@
+package com.chatroom.bench;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.chatroom.model.MessageRequest;
+import com.chatroom.model.User;
+import com.chatroom.server.RestServer;
+import com.chatroom.util.ApiClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ConnectionProbe;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.chatroom.util.Constants.Server.API_BASE_URL;
+
+/**
+ * Mesure la latence par appel côté client : l'ancien client (une
+ * <code>HttpURLConnection</code> par appel, corps copié dans un tableau avant décodage)
+ * contre {@link ApiClient} (pool de connexions keep-alive, décodage depuis le flux), ainsi
+ * que le nombre de connexions distinctes reçues par le serveur pendant chaque mesure.
+ * <p>
+ * Chaque tour enchaîne les appels d'un client de chat : heartbeat, liste des utilisateurs
+ * (conditionnelle), envoi d'un message et lecture de la page qui suit le curseur. La
+ * limitation de débit des envois est désactivée par défaut pour le benchmark ; relancer
+ * avec <code>-Dchatroom.http2=true</code> pour mesurer le client en HTTP/2.
+ * </p>
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.ApiClientBenchmark [-Dexec.args=2000]</code>
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ApiClientBenchmark {
+    private static final int WARMUP_ROUNDS = 500;
+    private static final String[] CALLS = {"heartbeat", "users", "send", "page"};
+    private static final String USERNAME = "bench";
+
+    /**
+     * Un client de chat : les quatre appels d'un tour
+     */
+    private interface Client {
+        void heartbeat() throws IOException;
+        List<User> users() throws IOException;
+        Message send(String content) throws IOException;
+        MessagePage page(long cursor) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        if (System.getProperty("chatroom.limits.messagesPerSecond") == null) {
+            System.setProperty("chatroom.limits.messagesPerSecond", "0");
+        }
+
+        HttpServer server = RestServer.startServer();
+        Set<Connection<?>> used = ConcurrentHashMap.newKeySet();
+        for (NetworkListener listener : server.getListeners()) {
+            listener.getTransport().getConnectionMonitoringConfig().addProbes(new ConnectionProbe.Adapter() {
+                // Signature brute imposée par ConnectionProbe (Grizzly)
+                @Override
+                @SuppressWarnings("rawtypes")
+                public void onReadEvent(Connection connection, Buffer data, int size) {
+                    used.add(connection);
+                }
+            });
+        }
+        try {
+            ApiClient.registerUser(USERNAME);
+            Client before = new LegacyClient();
+            Client after = new Client() {
+                public void heartbeat() throws IOException { ApiClient.sendHeartbeat(USERNAME); }
+                public List<User> users() throws IOException { return ApiClient.getUsers(); }
+                public Message send(String content) throws IOException { return ApiClient.sendMessage(USERNAME, content); }
+                public MessagePage page(long cursor) throws IOException { return ApiClient.getMessagesAfter(cursor); }
+            };
+
+            run(before, WARMUP_ROUNDS);
+            run(after, WARMUP_ROUNDS);
+            used.clear();
+            long[][] beforeResult = run(before, rounds);
+            int beforeConnections = used.size();
+            used.clear();
+            long[][] afterResult = run(after, rounds);
+            int afterConnections = used.size();
+
+            System.out.printf("Tours                : %d (%s)%n", rounds,
+                    Boolean.getBoolean("chatroom.http2") ? "ApiClient en HTTP/2" : "ApiClient en HTTP/1.1");
+            System.out.printf("%-10s: %24s %24s%n", "Appel", "avant p50/p99 (ms)", "après p50/p99 (ms)");
+            for (int call = 0; call < CALLS.length; call++) {
+                System.out.printf("%-10s: %11.3f / %10.3f %11.3f / %10.3f%n", CALLS[call],
+                        millis(beforeResult[call], 0.50), millis(beforeResult[call], 0.99),
+                        millis(afterResult[call], 0.50), millis(afterResult[call], 0.99));
+            }
+            System.out.printf("%-10s: %24d %24d%n", "connexions", beforeConnections, afterConnections);
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Les latences triées de chaque appel, en nanosecondes
+     */
+    private static long[][] run(Client client, int rounds) throws IOException {
+        long[][] latencies = new long[CALLS.length][rounds];
+        long cursor = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            client.heartbeat();
+            long heartbeat = System.nanoTime();
+            client.users();
+            long users = System.nanoTime();
+            Message message = client.send("Message de benchmark " + i);
+            long send = System.nanoTime();
+            client.page(cursor);
+            long page = System.nanoTime();
+            cursor = message.getSequence();
+
+            latencies[0][i] = heartbeat - start;
+            latencies[1][i] = users - heartbeat;
+            latencies[2][i] = send - users;
+            latencies[3][i] = page - send;
+        }
+        for (long[] call : latencies) {
+            Arrays.sort(call);
+        }
+        return latencies;
+    }
+
+    private static double millis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Reprise du client précédent : une <code>HttpURLConnection</code> par appel, sans
+     * délais, corps lu entièrement dans un tableau puis décodé
+     */
+    private static final class LegacyClient implements Client {
+        private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new ChatJsonModule());
+        private String usersEtag;
+        private byte[] usersBody;
+
+        @Override
+        public void heartbeat() throws IOException {
+            HttpURLConnection connection = open("/users/" + USERNAME + "/heartbeat");
+            connection.setRequestMethod("PUT");
+            connection.setDoOutput(true);
+            connection.getResponseCode();
+        }
+
+        @Override
+        public List<User> users() throws IOException {
+            HttpURLConnection connection = open("/users");
+            if (usersEtag != null) {
+                connection.setRequestProperty("If-None-Match", usersEtag);
+            }
+            if (connection.getResponseCode() == 200) {
+                usersBody = readBody(connection);
+                usersEtag = connection.getHeaderField("ETag");
+            }
+            return objectMapper.readValue(usersBody, new TypeReference<List<User>>(){});
+        }
+
+        @Override
+        public Message send(String content) throws IOException {
+            HttpURLConnection connection = open("/messages");
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            try (OutputStream os = connection.getOutputStream()) {
+                objectMapper.writeValue(os, new MessageRequest(USERNAME, content));
+            }
+            if (connection.getResponseCode() != 201) {
+                throw new IOException("Statut " + connection.getResponseCode());
+            }
+            return objectMapper.readValue(readBody(connection), Message.class);
+        }
+
+        @Override
+        public MessagePage page(long cursor) throws IOException {
+            HttpURLConnection connection = open("/messages?after=" + cursor + "&wait=0");
+            if (connection.getResponseCode() != 200) {
+                throw new IOException("Statut " + connection.getResponseCode());
+            }
+            return objectMapper.readValue(readBody(connection), MessagePage.class);
+        }
+
+        private static HttpURLConnection open(String path) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(API_BASE_URL + path).openConnection();
+            connection.setRequestProperty("Accept", "application/json");
+            return connection;
+        }
+
+        private static byte[] readBody(HttpURLConnection connection) throws IOException {
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream(Math.max(connection.getContentLength(), 256));
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+                return body.toByteArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.chatroom.bench;
+
+import com.chatroom.model.ChatJsonModule;
+import com.chatroom.model.Message;
+import com.chatroom.model.MessageRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Mesure le coût de liaison JSON d'un envoi de message (<code>POST /chat/messages</code>) :
+ * lecture du corps de la requête puis écriture du message créé.
+ * <p>
+ * Compare l'ancienne liaison (corps lu dans une <code>Map</code>, message sérialisé par
+ * introspection) à la nouvelle ({@link MessageRequest} et {@link ChatJsonModule}), en
+ * octets alloués et en nanosecondes par requête.
+ * </p>
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.BindingBenchmark [-Dexec.args=1000000]</code>
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class BindingBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final byte[] REQUEST = "{\"sender\":\"user12\",\"content\":\"Message de test avec un peu de texte\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Liaison d'une requête : corps lu, message créé puis encodé
+     */
+    private interface Binding {
+        byte[] bind(byte[] body) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        ObjectMapper plain = new ObjectMapper();
+        ObjectReader mapReader = plain.readerFor(new TypeReference<Map<String, String>>() {});
+        ObjectWriter plainWriter = plain.writerFor(Message.class);
+        Binding before = body -> {
+            Map<String, String> messageInfo = mapReader.readValue(body);
+            return plainWriter.writeValueAsBytes(new Message(messageInfo.get("sender"), messageInfo.get("content")));
+        };
+
+        ObjectMapper tuned = new ObjectMapper().registerModule(new ChatJsonModule());
+        ObjectReader requestReader = tuned.readerFor(MessageRequest.class);
+        ObjectWriter tunedWriter = tuned.writerFor(Message.class);
+        Binding after = body -> {
+            MessageRequest request = requestReader.readValue(body);
+            return tunedWriter.writeValueAsBytes(new Message(request.getSender(), request.getContent()));
+        };
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(before, count);
+            run(after, count);
+        }
+
+        double[] beforeResult = run(before, count);
+        double[] afterResult = run(after, count);
+        System.out.printf("Requêtes             : %d%n", count);
+        System.out.printf("%-21s: %12s %10s%n", "Liaison", "octets/req", "ns/req");
+        System.out.printf("%-21s: %12.0f %10.0f%n", "Map + introspection", beforeResult[0], beforeResult[1]);
+        System.out.printf("%-21s: %12.0f %10.0f%n", "DTO + module", afterResult[0], afterResult[1]);
+    }
+
+    /**
+     * @return Octets alloués puis nanosecondes, par requête
+     */
+    private static double[] run(Binding binding, int count) throws IOException {
+        long thread = Thread.currentThread().getId();
+        long total = 0;
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            total += binding.bind(REQUEST).length;
+        }
+        long nanos = System.nanoTime() - start;
+        allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        if (total == 0) {
+            throw new IllegalStateException("Aucun octet encodé");
+        }
+        return new double[] {(double) allocated / count, (double) nanos / count};
+    }
+}
@@ -0,0 +1,165 @@
+package com.chatroom.bench;
+
+import com.chatroom.client.TranscriptWindow;
+import com.chatroom.model.Message;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.chatroom.util.Constants.Client.HISTORY_PAGE_SIZE;
+import static com.chatroom.util.Constants.Client.TRANSCRIPT_CAPACITY;
+
+/**
+ * Mesure la réactivité de l'interface pendant une rafale de messages : chaque message arrive
+ * seul, comme lorsque chaque réponse de synchronisation n'en contient qu'un. Avant : une
+ * tâche EDT par réponse, qui met à jour le modèle, refait la mise en page et fait défiler ;
+ * après : {@link TranscriptWindow#post(List)}, qui affiche les messages par lots au plus une
+ * fois par trame.
+ * <p>
+ * Pendant la rafale, une sonde dépose une tâche vide sur l'EDT toutes les millisecondes et
+ * mesure son attente dans la file : c'est le délai que subirait une action de l'utilisateur.
+ * Sont affichés la durée jusqu'à l'affichage du dernier message, le nombre d'ajouts au
+ * modèle du fil et l'attente de la sonde (médiane, 99e centile, maximum).
+ * </p>
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.EdtBurstBenchmark -Djava.awt.headless=true
+ * [-Dexec.args="1000 5000 20000"]</code> (tailles des rafales)
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class EdtBurstBenchmark {
+    private static final int WIDTH = 560;
+    private static final int HEIGHT = 480;
+    private static final long PROBE_INTERVAL_NANOS = 1_000_000;
+    private static final String[] CONTENTS = {
+            "Bonjour à tous !",
+            "Quelqu'un a regardé le sujet du TP ? La partie sur le serveur REST me semble plus longue que prévu.",
+            "Oui, on peut en parler demain après le cours",
+            "ok"
+    };
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int[] bursts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1_000, 5_000, 20_000};
+
+        // Première passe non mesurée : chargement des classes et compilation
+        run(bursts[0], false);
+        run(bursts[0], true);
+
+        System.out.printf("%-8s %-6s: %10s %10s %28s%n", "Rafale", "", "durée (ms)", "ajouts",
+                "attente EDT p50/p99/max (ms)");
+        for (int burst : bursts) {
+            print(burst, "avant", run(burst, false));
+            print(burst, "après", run(burst, true));
+        }
+        System.exit(0);
+    }
+
+    private static void print(int burst, String label, double[] result) {
+        System.out.printf("%-8d %-6s: %10.1f %10.0f %10.3f / %6.3f / %6.3f%n",
+                burst, label, result[0], result[1], result[2], result[3], result[4]);
+    }
+
+    /**
+     * @return Durée de la rafale (ms), nombre d'ajouts au modèle du fil, attente de la sonde
+     *         (médiane, 99e centile, maximum, en ms)
+     */
+    private static double[] run(int burst, boolean coalesced) throws Exception {
+        TranscriptWindow[] window = new TranscriptWindow[1];
+        ListModel<?>[] model = new ListModel<?>[1];
+        AtomicLong updates = new AtomicLong();
+        SwingUtilities.invokeAndWait(() -> {
+            window[0] = new TranscriptWindow(TRANSCRIPT_CAPACITY, HISTORY_PAGE_SIZE);
+            window[0].setCurrentUser("bench");
+            JScrollPane scrollPane = (JScrollPane) window[0].getComponent();
+            JList<?> list = (JList<?>) scrollPane.getViewport().getView();
+            model[0] = list.getModel();
+            model[0].addListDataListener(new ListDataListener() {
+                public void intervalAdded(ListDataEvent e) { updates.incrementAndGet(); }
+                public void intervalRemoved(ListDataEvent e) { }
+                public void contentsChanged(ListDataEvent e) { }
+            });
+            new Root(scrollPane).frame();
+        });
+
+        Consumer<List<Message>> receive = coalesced
+                ? window[0]::post
+                : messages -> SwingUtilities.invokeLater(() -> window[0].deliver(messages));
+
+        long[] probe = new long[1 << 20];
+        int[] probes = new int[1];
+        long start = System.nanoTime();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < burst; i++) {
+                receive.accept(Collections.singletonList(message(i)));
+            }
+        });
+        producer.start();
+
+        // Sonde : une tâche vide par milliseconde, jusqu'à l'affichage du dernier message
+        AtomicBoolean done = new AtomicBoolean();
+        while (!done.get()) {
+            long queued = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                if (probes[0] < probe.length) {
+                    probe[probes[0]++] = System.nanoTime() - queued;
+                }
+                int size = model[0].getSize();
+                done.set(size > 0 && ((Message) model[0].getElementAt(size - 1)).getSequence() == burst);
+            });
+            long next = queued + PROBE_INTERVAL_NANOS;
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+        }
+        double duration = (System.nanoTime() - start) / 1e6;
+        producer.join();
+
+        long[] latencies = Arrays.copyOf(probe, probes[0]);
+        Arrays.sort(latencies);
+        return new double[] {duration, updates.get(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6};
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static Message message(int index) {
+        Message message = new Message(index % 3 == 0 ? "bench" : "user" + (index % 7), CONTENTS[index % CONTENTS.length]);
+        message.setSequence(index + 1);
+        message.setTimestamp(System.currentTimeMillis());
+        return message;
+    }
+
+    /**
+     * Racine sans fenêtre : la mise en page est validée comme le ferait l'EDT avant de dessiner
+     */
+    private static final class Root extends JPanel {
+        Root(JComponent view) {
+            super(new BorderLayout());
+            add(view, BorderLayout.CENTER);
+            setSize(WIDTH, HEIGHT);
+        }
+
+        void frame() {
+            synchronized (getTreeLock()) {
+                validateTree();
+            }
+        }
+    }
+}
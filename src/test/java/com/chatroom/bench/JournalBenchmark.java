@@ -0,0 +1,79 @@
+package com.chatroom.bench;
+
+import com.chatroom.model.Message;
+import com.chatroom.model.MessageJournal;
+import com.chatroom.model.MessageLog;
+import com.chatroom.model.RetentionPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Compare le débit d'ajout du journal de messages en mémoire et en mode durable.
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.JournalBenchmark [-Dexec.args=1000000]</code>
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class JournalBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final long REGION_BYTES = 64L * 1024 * 1024;
+    private static final long FSYNC_INTERVAL_MS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Message[] messages = new Message[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = new Message("user" + (i % 50), "Message de test numéro " + i + " avec un peu de texte");
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            inMemory(messages);
+            durable(messages);
+        }
+
+        double memory = inMemory(messages);
+        double durable = durable(messages);
+        System.out.printf("Messages             : %d%n", count);
+        System.out.printf("En mémoire           : %,.0f messages/s%n", memory);
+        System.out.printf("Durable (mmap)       : %,.0f messages/s%n", durable);
+        System.out.printf("Rapport mémoire/disque: %.2fx%n", memory / durable);
+    }
+
+    private static double inMemory(Message[] messages) {
+        MessageLog log = new MessageLog(RetentionPolicy.unlimited());
+        long start = System.nanoTime();
+        for (Message message : messages) {
+            log.append(message);
+        }
+        return throughput(messages.length, System.nanoTime() - start);
+    }
+
+    private static double durable(Message[] messages) throws IOException {
+        Path dir = Files.createTempDirectory("journal-bench");
+        MessageLog log = new MessageLog(RetentionPolicy.unlimited());
+        try (MessageJournal journal = new MessageJournal(dir.resolve("bench.journal"), REGION_BYTES, FSYNC_INTERVAL_MS)) {
+            log.setJournal(journal);
+            long start = System.nanoTime();
+            for (Message message : messages) {
+                log.append(message);
+            }
+            journal.sync();
+            return throughput(messages.length, System.nanoTime() - start);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static double throughput(int count, long nanos) {
+        return count / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,199 @@
+package com.chatroom.bench;
+
+import com.chatroom.model.ChatManager;
+import com.chatroom.server.RestServer;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.chatroom.util.Constants.Server.API_BASE_URL;
+import static com.chatroom.util.Constants.Server.BASE_URI;
+
+/**
+ * Mesure le débit et la latence des requêtes courtes (<code>GET /chat/users</code>) pendant
+ * que des milliers de requêtes bloquantes sont maintenues ouvertes, puis le délai de
+ * reprise de ces requêtes lorsqu'elles sont libérées.
+ * <p>
+ * Le long-polling de <code>GET /chat/messages</code> est suspendu par
+ * <code>AsyncResponse</code> et n'occupe aucun thread : il ne distingue pas les modes
+ * d'exécution. Les requêtes maintenues visent donc un gestionnaire propre au benchmark,
+ * ajouté au serveur démarré, qui bloque son thread de requête jusqu'à la libération,
+ * comme le ferait un traitement synchrone lent.
+ * </p>
+ * <p>
+ * Le mode d'exécution du serveur est fixé par les propriétés système : lancer le benchmark
+ * une fois avec le pool de threads de travail (éventuellement dimensionné par
+ * <code>-Dchatroom.threads.workers</code>) et une fois avec
+ * <code>-Dchatroom.threads.virtual=true</code> (Java 21 ou plus) pour comparer.
+ * </p>
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.ServerThreadsBenchmark [-Dexec.args="2000 16 2000"]</code>
+ * (requêtes maintenues, clients, requêtes courtes par client)
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ServerThreadsBenchmark {
+    private static final int HOLD_MS = 30_000;
+    private static final int WARMUP_REQUESTS = 200;
+    private static final String HOLD_PATH = "/bench/hold";
+    // Délai sans nouvelle requête bloquée après lequel les autres sont tenues pour en file
+    private static final long SETTLE_MS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int held = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        HttpServer server = RestServer.startServer();
+        try {
+            ChatManager.getInstance().addUser("bench");
+
+            // Gestionnaire bloquant : chaque requête occupe son thread jusqu'à la libération
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger blocked = new AtomicInteger();
+            server.getServerConfiguration().addHttpHandler(new HttpHandler() {
+                @Override
+                public void service(Request request, Response response) throws Exception {
+                    blocked.incrementAndGet();
+                    release.await(HOLD_MS, TimeUnit.MILLISECONDS);
+                    response.setContentType("text/plain");
+                    response.getWriter().write("ok");
+                }
+            }, HOLD_PATH);
+
+            // Requêtes maintenues
+            CountDownLatch resumed = new CountDownLatch(held);
+            long[] resumeNanos = new long[held];
+            AtomicInteger failures = new AtomicInteger();
+            long[] released = new long[1];
+            for (int i = 0; i < held; i++) {
+                int index = i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        get(BASE_URI + HOLD_PATH.substring(1), HOLD_MS + 10_000);
+                        resumeNanos[index] = System.nanoTime() - released[0];
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        resumed.countDown();
+                    }
+                }, "held-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            int blocking = waitForBlocked(blocked, held);
+
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                try {
+                    get(API_BASE_URL + "/users", 10_000);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            }
+
+            // Requêtes courtes concurrentes
+            long[][] latencies = new long[clients][requestsPerClient];
+            Thread[] threads = new Thread[clients];
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                long[] own = latencies[c];
+                threads[c] = new Thread(() -> {
+                    for (int i = 0; i < own.length; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            get(API_BASE_URL + "/users", 10_000);
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                        own[i] = System.nanoTime() - begin;
+                    }
+                });
+                threads[c].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            // Reprise des requêtes maintenues
+            released[0] = System.nanoTime();
+            release.countDown();
+            resumed.await(HOLD_MS, TimeUnit.MILLISECONDS);
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            Arrays.sort(resumeNanos);
+            System.out.printf("Mode                 : %s%n",
+                    Boolean.getBoolean("chatroom.threads.virtual") ? "threads virtuels (si disponibles)" : "pool de travail");
+            System.out.printf("Requêtes maintenues  : %d (%d threads bloqués, le reste en file)%n", held, blocking);
+            System.out.printf("Requêtes courtes     : %d (%d clients)%n", all.length, clients);
+            System.out.printf("Débit                : %,.0f requêtes/s%n", all.length / (elapsed / 1e9));
+            System.out.printf("Latence p50/p99/p999 : %.2f / %.2f / %.2f ms%n",
+                    millis(all, 0.50), millis(all, 0.99), millis(all, 0.999));
+            System.out.printf("Reprise p50/p99/max  : %.2f / %.2f / %.2f ms%n",
+                    millis(resumeNanos, 0.50), millis(resumeNanos, 0.99), millis(resumeNanos, 1.0));
+            System.out.printf("Erreurs              : %d%n", failures.get());
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    /**
+     * Attend que toutes les requêtes maintenues bloquent un thread, ou qu'aucune nouvelle ne
+     * le fasse plus : avec un pool de threads borné, les suivantes restent en file
+     * @return Le nombre de requêtes qui bloquent un thread
+     */
+    private static int waitForBlocked(AtomicInteger blocked, int held) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        int last = -1;
+        long lastChange = System.currentTimeMillis();
+        while (System.currentTimeMillis() < deadline) {
+            int current = blocked.get();
+            if (current >= held) {
+                return current;
+            }
+            if (current != last) {
+                last = current;
+                lastChange = System.currentTimeMillis();
+            } else if (current > 0 && System.currentTimeMillis() - lastChange >= SETTLE_MS) {
+                return current;
+            }
+            Thread.sleep(100);
+        }
+        return blocked.get();
+    }
+
+    private static String get(String url, int readTimeout) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setReadTimeout(readTimeout);
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Statut " + connection.getResponseCode());
+        }
+        StringBuilder body = new StringBuilder();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.append(new String(buffer, 0, read, "UTF-8"));
+            }
+        }
+        return body.toString();
+    }
+
+    private static double millis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
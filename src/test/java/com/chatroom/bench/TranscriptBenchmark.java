@@ -0,0 +1,230 @@
+package com.chatroom.bench;
+
+import com.chatroom.client.MessageListCellRenderer;
+import com.chatroom.client.MessageListUI;
+import com.chatroom.model.Message;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mesure le coût d'affichage d'un nouveau message en fonction de la taille du fil de
+ * discussion : l'ancien fil (un <code>MessageBubble</code> et un espaceur par message dans
+ * un <code>BoxLayout</code>) contre la {@link JList} virtualisée
+ * ({@link MessageListUI} et {@link MessageListCellRenderer}).
+ * <p>
+ * Chaque trame ajoute un message, refait la mise en page, fait défiler jusqu'au dernier
+ * message et dessine la zone visible dans une image, comme le ferait l'EDT. Le benchmark
+ * s'exécute sans affichage ; la mémoire retenue par message est mesurée après un GC.
+ * </p>
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.TranscriptBenchmark -Djava.awt.headless=true
+ * [-Dexec.args="5000 100000"]</code> (taille maximale de l'ancien fil, du nouveau)
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class TranscriptBenchmark {
+    private static final int FRAMES = 200;
+    private static final int[] SIZES = {1_000, 5_000, 10_000, 100_000, 1_000_000};
+    private static final int WIDTH = 560;
+    private static final int HEIGHT = 480;
+    private static final String[] CONTENTS = {
+            "Bonjour à tous !",
+            "Quelqu'un a regardé le sujet du TP ? La partie sur le serveur REST me semble plus longue que prévu.",
+            "Oui, on peut en parler demain après le cours",
+            "ok"
+    };
+
+    /**
+     * Un fil de discussion affiché dans une zone de défilement
+     */
+    private interface Transcript {
+        void fill(List<Message> messages);
+        void append(Message message);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int legacyMax = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int virtualMax = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        System.out.printf("%-10s: %12s %12s %14s%n", "Messages", "avant (ms)", "après (ms)", "octets/message");
+        for (int size : SIZES) {
+            double[] before = size <= legacyMax ? run(new LegacyTranscript(), size) : null;
+            double[] after = size <= virtualMax ? run(new VirtualTranscript(), size) : null;
+            System.out.printf("%-10d: %12s %12s %14s%n", size,
+                    before != null ? String.format("%.3f", before[0]) : "-",
+                    after != null ? String.format("%.3f", after[0]) : "-",
+                    (before != null ? String.format("%.0f", before[1]) : "-") + " / "
+                            + (after != null ? String.format("%.0f", after[1]) : "-"));
+        }
+    }
+
+    /**
+     * @return Durée médiane d'une trame en millisecondes, puis octets retenus par message
+     */
+    private static double[] run(Transcript transcript, int size) {
+        long heapBefore = usedHeap();
+        List<Message> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(message(i));
+        }
+        transcript.fill(messages);
+        double bytesPerMessage = (double) (usedHeap() - heapBefore) / size;
+
+        long[] frames = new long[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            long start = System.nanoTime();
+            transcript.append(message(size + i));
+            frames[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(frames);
+        return new double[] {frames[FRAMES / 2] / 1e6, bytesPerMessage};
+    }
+
+    private static Message message(int index) {
+        Message message = new Message(index % 3 == 0 ? "bench" : "user" + (index % 7), CONTENTS[index % CONTENTS.length]);
+        message.setSequence(index + 1);
+        message.setTimestamp(System.currentTimeMillis());
+        return message;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Racine sans fenêtre : la mise en page est validée comme le ferait l'EDT avant de
+     * dessiner, puis la zone visible est dessinée dans une image
+     */
+    private static final class Root extends JPanel {
+        private final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        Root(JComponent view) {
+            super(new BorderLayout());
+            JScrollPane scrollPane = new JScrollPane(view);
+            scrollPane.setBorder(null);
+            add(scrollPane, BorderLayout.CENTER);
+            setSize(WIDTH, HEIGHT);
+        }
+
+        void frame() {
+            synchronized (getTreeLock()) {
+                validateTree();
+            }
+        }
+
+        void paint() {
+            Graphics2D g = image.createGraphics();
+            paint(g);
+            g.dispose();
+        }
+    }
+
+    /**
+     * Reprise de l'ancien fil : un <code>MessageBubble</code> (panneaux, libellés et zone de
+     * texte) et un espaceur par message
+     */
+    private static final class LegacyTranscript implements Transcript {
+        private final JPanel chatPanel = new JPanel();
+        private final Root root;
+
+        LegacyTranscript() {
+            chatPanel.setLayout(new BoxLayout(chatPanel, BoxLayout.Y_AXIS));
+            root = new Root(chatPanel);
+        }
+
+        @Override
+        public void fill(List<Message> messages) {
+            for (Message message : messages) {
+                add(message);
+            }
+            root.frame();
+        }
+
+        @Override
+        public void append(Message message) {
+            add(message);
+            chatPanel.revalidate();
+            root.frame();
+            JScrollBar vertical = ((JScrollPane) root.getComponent(0)).getVerticalScrollBar();
+            vertical.setValue(vertical.getMaximum());
+            root.frame();
+            root.paint();
+        }
+
+        private void add(Message message) {
+            boolean isCurrentUser = "bench".equals(message.getSender());
+            JPanel bubble = new JPanel();
+            bubble.setOpaque(false);
+            bubble.setBorder(new EmptyBorder(8, 12, 8, 12));
+            bubble.setLayout(new BoxLayout(bubble, BoxLayout.Y_AXIS));
+            if (!isCurrentUser) {
+                bubble.add(new JLabel(message.getSender()));
+            }
+            JTextArea contentArea = new JTextArea(message.getContent());
+            contentArea.setEditable(false);
+            contentArea.setWrapStyleWord(true);
+            contentArea.setLineWrap(true);
+            contentArea.setOpaque(false);
+            bubble.add(contentArea);
+            bubble.add(new JLabel("12:00"));
+
+            JPanel wrapper = new JPanel(new BorderLayout());
+            wrapper.setOpaque(false);
+            wrapper.add(bubble, isCurrentUser ? BorderLayout.EAST : BorderLayout.WEST);
+            JPanel messageBubble = new JPanel(new BorderLayout());
+            messageBubble.setMaximumSize(new Dimension(400, 1000));
+            messageBubble.add(wrapper, BorderLayout.CENTER);
+
+            chatPanel.add(messageBubble);
+            chatPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        }
+    }
+
+    /**
+     * Fil virtualisé : une ligne de {@link JList} par message, hauteurs conservées par l'interface
+     */
+    private static final class VirtualTranscript implements Transcript {
+        private final DefaultListModel<Message> model = new DefaultListModel<>();
+        private final JList<Message> list = new JList<>(model);
+        private final Root root;
+
+        VirtualTranscript() {
+            MessageListCellRenderer renderer = new MessageListCellRenderer();
+            renderer.setCurrentUser("bench");
+            list.setUI(new MessageListUI());
+            list.setCellRenderer(renderer);
+            root = new Root(list);
+        }
+
+        @Override
+        public void fill(List<Message> messages) {
+            model.addAll(messages);
+            root.frame();
+            // Seconde passe à la largeur réelle de la liste, comme après le premier redimensionnement
+            root.frame();
+        }
+
+        @Override
+        public void append(Message message) {
+            model.addElement(message);
+            root.frame();
+            list.ensureIndexIsVisible(model.getSize() - 1);
+            root.frame();
+            root.paint();
+        }
+    }
+}
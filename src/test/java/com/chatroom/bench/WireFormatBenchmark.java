@@ -0,0 +1,83 @@
+package com.chatroom.bench;
+
+import com.chatroom.model.Message;
+import com.chatroom.model.MessagePage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare les formats JSON et Smile sur des pages de messages : taille par message,
+ * temps d'encodage et de décodage.
+ * <p>
+ * Exécution : <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chatroom.bench.WireFormatBenchmark [-Dexec.args=2000]</code>
+ * </p>
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class WireFormatBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int PAGE_SIZE = 500;
+
+    public static void main(String[] args) throws IOException {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        List<Message> messages = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            Message message = new Message("user" + (i % 50), "Message de test numéro " + i + " avec un peu de texte");
+            message.setSequence(i);
+            messages.add(message);
+        }
+        MessagePage page = new MessagePage(messages, PAGE_SIZE, false);
+
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(json, page, pages);
+            run(smile, page, pages);
+        }
+
+        long[] jsonResult = run(json, page, pages);
+        long[] smileResult = run(smile, page, pages);
+        long messageCount = (long) pages * PAGE_SIZE;
+        System.out.printf("Messages             : %d (pages de %d)%n", messageCount, PAGE_SIZE);
+        System.out.printf("%-21s: %10s %16s %16s%n", "Format", "octets/msg", "encodage ns/msg", "décodage ns/msg");
+        print("JSON", jsonResult, messageCount);
+        print("Smile", smileResult, messageCount);
+        System.out.printf("Rapport taille JSON/Smile: %.2fx%n", (double) jsonResult[0] / smileResult[0]);
+    }
+
+    /**
+     * @return Taille d'une page en octets, puis durées totales d'encodage et de décodage en nanosecondes
+     */
+    private static long[] run(ObjectMapper mapper, MessagePage page, int pages) throws IOException {
+        byte[] encoded = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < pages; i++) {
+            encoded = mapper.writeValueAsBytes(page);
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        long cursor = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < pages; i++) {
+            cursor += mapper.readValue(encoded, MessagePage.class).getCursor();
+        }
+        long decodeNanos = System.nanoTime() - start;
+        if (cursor != (long) pages * page.getCursor()) {
+            throw new IllegalStateException("Décodage incorrect");
+        }
+        return new long[] {encoded.length, encodeNanos, decodeNanos};
+    }
+
+    private static void print(String format, long[] result, long messageCount) {
+        System.out.printf("%-21s: %10.1f %16.1f %16.1f%n", format,
+                (double) result[0] / PAGE_SIZE,
+                (double) result[1] / messageCount,
+                (double) result[2] / messageCount);
+    }
+}
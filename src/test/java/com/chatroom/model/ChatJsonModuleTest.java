@@ -0,0 +1,76 @@
+package com.chatroom.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Désérialiseurs de {@link ChatJsonModule} : valeurs simples, champs inconnus et valeurs
+ * imbriquées refusées comme par la désérialisation par défaut de Jackson.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatJsonModuleTest {
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new ChatJsonModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    public void readsMessage() throws IOException {
+        Message message = mapper.readValue(
+                "{\"sender\":\"alice\",\"extra\":{\"a\":[1,2]},\"content\":\"bonjour\",\"timestamp\":42,\"sequence\":\"7\"}",
+                Message.class);
+        assertEquals("alice", message.getSender());
+        assertEquals("bonjour", message.getContent());
+        assertEquals(42, message.getTimestamp());
+        assertEquals(7, message.getSequence());
+    }
+
+    @Test
+    public void readsNullValues() throws IOException {
+        Message message = mapper.readValue("{\"sender\":null,\"content\":\"x\",\"timestamp\":null}", Message.class);
+        assertNull(message.getSender());
+        assertEquals(0, message.getTimestamp());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void rejectsNestedSender() throws IOException {
+        mapper.readValue("{\"sender\":{\"a\":1},\"content\":\"x\"}", Message.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void rejectsNestedContent() throws IOException {
+        mapper.readValue("{\"sender\":\"alice\",\"content\":[\"x\"]}", Message.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void rejectsNestedSequence() throws IOException {
+        mapper.readValue("{\"sender\":\"alice\",\"content\":\"x\",\"sequence\":{\"sequence\":1}}", Message.class);
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void rejectsNestedUsername() throws IOException {
+        mapper.readValue("{\"username\":{\"username\":\"bob\"}}", User.class);
+    }
+
+    @Test
+    public void roundTripsThroughSmile() throws IOException {
+        ObjectMapper smile = new ObjectMapper(new SmileFactory()).registerModule(new ChatJsonModule());
+        Message message = new Message("alice", "bonjour");
+        message.setSequence(3);
+        message.setTimestamp(1000);
+        Message read = smile.readValue(smile.writeValueAsBytes(message), Message.class);
+        assertEquals("alice", read.getSender());
+        assertEquals("bonjour", read.getContent());
+        assertEquals(3, read.getSequence());
+        assertEquals(1000, read.getTimestamp());
+    }
+}
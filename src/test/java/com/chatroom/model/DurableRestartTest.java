@@ -0,0 +1,163 @@
+package com.chatroom.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Redémarrage en mode durable : instantané, compactage du journal derrière lui, puis
+ * relecture de l'instantané et de la fin du journal, comme le fait
+ * {@link ChatManager#enableJournal(Path)}.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class DurableRestartTest {
+    // Petites régions : le journal compacté s'étend sur plusieurs régions
+    private static final long REGION_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoresSnapshotAndCompactedJournal() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Message> expected = new ArrayList<>();
+
+        try (Store store = Store.open(dir)) {
+            append(store, expected, "avant", 300);
+            store.snapshot();
+            append(store, expected, "après", 200);
+        }
+
+        assertFalse(Files.exists(dir.resolve("messages.journal.tmp")));
+        assertRestored(dir, expected);
+    }
+
+    @Test
+    public void survivesRepeatedRestarts() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Message> expected = new ArrayList<>();
+
+        for (int run = 0; run < 3; run++) {
+            try (Store store = Store.open(dir)) {
+                assertEquals(expected.size(), store.log.getLastSequence());
+                append(store, expected, "run" + run, 150);
+                store.snapshot();
+                append(store, expected, "run" + run + "-fin", 40);
+            }
+        }
+
+        assertRestored(dir, expected);
+    }
+
+    @Test
+    public void restoresJournalWithoutSnapshot() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Message> expected = new ArrayList<>();
+
+        try (Store store = Store.open(dir)) {
+            append(store, expected, "seul", 120);
+        }
+
+        assertRestored(dir, expected);
+    }
+
+    @Test
+    public void rejectsSnapshotWithCorruptCounts() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("chat.snapshot");
+        List<Message> messages = new ArrayList<>();
+        messages.add(new Message("alice", "bonjour"));
+        messages.get(0).setSequence(1);
+        new ChatSnapshot(1, Collections.singletonList(new User("alice")), messages).write(file);
+        byte[] valid = Files.readAllBytes(file);
+
+        // Nombre d'utilisateurs (après l'en-tête et la dernière séquence), puis longueur du nom
+        for (int offset : new int[] {16, 20}) {
+            for (int value : new int[] {Integer.MAX_VALUE, -2}) {
+                byte[] corrupt = valid.clone();
+                ByteBuffer.wrap(corrupt).putInt(offset, value);
+                Files.write(file, corrupt);
+                try {
+                    ChatSnapshot.read(file);
+                    fail("Instantané corrompu accepté (octet " + offset + ", valeur " + value + ")");
+                } catch (IOException expected) {
+                    assertTrue(expected.getMessage().startsWith("Instantané corrompu"));
+                }
+            }
+        }
+    }
+
+    private static void append(Store store, List<Message> expected, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            Message message = store.log.append(new Message("user" + (i % 5), prefix + " " + i));
+            expected.add(message);
+        }
+    }
+
+    private static void assertRestored(Path dir, List<Message> expected) throws IOException {
+        try (Store store = Store.open(dir)) {
+            List<Message> restored = store.log.all();
+            assertEquals(expected.size(), restored.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Message want = expected.get(i);
+                Message got = restored.get(i);
+                assertEquals(want.getSequence(), got.getSequence());
+                assertEquals(want.getTimestamp(), got.getTimestamp());
+                assertEquals(want.getSender(), got.getSender());
+                assertEquals(want.getContent(), got.getContent());
+            }
+        }
+    }
+
+    /**
+     * Historique durable ouvert comme au démarrage du serveur
+     */
+    private static final class Store implements AutoCloseable {
+        final MessageLog log = new MessageLog(new RetentionPolicy(0, 0, 0));
+        final Path snapshotFile;
+        final MessageJournal journal;
+
+        private Store(Path dir) throws IOException {
+            snapshotFile = dir.resolve("chat.snapshot");
+            ChatSnapshot snapshot = ChatSnapshot.read(snapshotFile);
+            if (snapshot != null) {
+                snapshot.getMessages().forEach(log::restore);
+                log.skipTo(snapshot.getLastSequence() + 1);
+            }
+            journal = new MessageJournal(dir.resolve("messages.journal"), REGION_SIZE, 10);
+            journal.replay(log::restore);
+            log.setJournal(journal);
+        }
+
+        static Store open(Path dir) throws IOException {
+            return new Store(dir);
+        }
+
+        void snapshot() throws IOException {
+            List<Message> window = new ArrayList<>();
+            long lastSequence = log.capture(window);
+            new ChatSnapshot(lastSequence, Collections.emptyList(), window).write(snapshotFile);
+            log.compactJournal(lastSequence);
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.setJournal(null);
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatroom.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Ajouts à un {@link MessageLog} journalisé : un message trop volumineux pour le journal
+ * n'est pas ajouté, et un lot qui en contient un est refusé en entier.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessageLogTest {
+    private static final long REGION_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MessageLog log;
+    private MessageJournal journal;
+
+    @Before
+    public void open() throws IOException {
+        log = new MessageLog(new RetentionPolicy(0, 0, 0));
+        journal = new MessageJournal(folder.getRoot().toPath().resolve("messages.journal"), REGION_SIZE, 10);
+        log.setJournal(journal);
+        log.append(new Message("alice", "premier"));
+    }
+
+    @After
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    public void rejectsOversizedMessage() throws IOException {
+        try {
+            log.append(new Message("alice", oversized()));
+            fail("Message trop volumineux accepté");
+        } catch (IllegalArgumentException expected) {
+            // attendu
+        }
+        assertEquals(1, log.getLastSequence());
+        assertEquals(2, log.append(new Message("alice", "suivant")).getSequence());
+        assertEquals(2, replayed());
+    }
+
+    @Test
+    public void rejectsWholeBatchWithOversizedMessage() throws IOException {
+        List<Message> batch = Arrays.asList(
+                new Message("alice", "a"), new Message("bob", oversized()), new Message("carol", "c"));
+        try {
+            log.appendAll(batch);
+            fail("Lot avec un message trop volumineux accepté");
+        } catch (IllegalArgumentException expected) {
+            // attendu
+        }
+        assertEquals(1, log.getLastSequence());
+        assertEquals(1, replayed());
+    }
+
+    @Test
+    public void appendsBatchWithContiguousSequences() throws IOException {
+        List<Message> added = log.appendAll(Arrays.asList(new Message("alice", "a"), new Message("bob", "b")));
+        assertEquals(2, added.get(0).getSequence());
+        assertEquals(3, added.get(1).getSequence());
+        assertEquals(3, replayed());
+    }
+
+    private long replayed() throws IOException {
+        List<Message> messages = new ArrayList<>();
+        journal.replay(messages::add);
+        return messages.size();
+    }
+
+    private static String oversized() {
+        StringBuilder content = new StringBuilder();
+        while (content.length() <= REGION_SIZE) {
+            content.append("texte trop long ");
+        }
+        return content.toString();
+    }
+}
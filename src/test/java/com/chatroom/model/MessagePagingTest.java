@@ -0,0 +1,85 @@
+package com.chatroom.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pagination par curseur de {@link ChatManager#getMessagesAfter(long, int)} : pages
+ * contiguës, <code>hasMore</code>, page vide en fin d'historique et curseur remis à zéro
+ * lorsqu'il dépasse le dernier message (serveur redémarré).
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class MessagePagingTest {
+    private final ChatManager chatManager = ChatManager.getInstance();
+    private final String username = "paging-" + System.nanoTime();
+    private long start;
+
+    @Before
+    public void fill() {
+        chatManager.addUser(username);
+        start = chatManager.getLastSequence();
+        for (int i = 0; i < 5; i++) {
+            chatManager.addMessage(username, "m" + i);
+        }
+    }
+
+    @After
+    public void leave() {
+        chatManager.removeUser(username);
+    }
+
+    @Test
+    public void pagesFollowTheCursorUntilNoMore() {
+        List<String> contents = new ArrayList<>();
+        long cursor = start;
+        MessagePage page;
+        int pages = 0;
+        do {
+            page = chatManager.getMessagesAfter(cursor, 2);
+            for (Message message : page.getMessages()) {
+                assertEquals(cursor + 1, message.getSequence());
+                contents.add(message.getContent());
+                cursor = message.getSequence();
+            }
+            assertEquals(cursor, page.getCursor());
+            pages++;
+        } while (page.isHasMore());
+
+        assertEquals(3, pages);
+        assertEquals(5, contents.size());
+        assertEquals("m0", contents.get(0));
+        assertEquals("m4", contents.get(4));
+    }
+
+    @Test
+    public void hasMoreOnlyWhenMessagesRemain() {
+        assertTrue(chatManager.getMessagesAfter(start, 4).isHasMore());
+        assertFalse(chatManager.getMessagesAfter(start, 5).isHasMore());
+    }
+
+    @Test
+    public void cursorAtLastSequenceGivesEmptyPage() {
+        long last = chatManager.getLastSequence();
+        MessagePage page = chatManager.getMessagesAfter(last, 10);
+        assertTrue(page.getMessages().isEmpty());
+        assertEquals(last, page.getCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void cursorPastLastSequenceRestartsFromBeginning() {
+        MessagePage page = chatManager.getMessagesAfter(chatManager.getLastSequence() + 100, 1);
+        assertEquals(1, page.getMessages().size());
+        assertEquals(chatManager.getFirstSequence(), page.getMessages().get(0).getSequence());
+    }
+}
@@ -0,0 +1,99 @@
+package com.chatroom.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Deltas de présence de {@link PresenceLog} : changements depuis une version connue, liste
+ * complète pour une version inconnue, sortie du journal ou émise par une autre exécution.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class PresenceLogTest {
+    private final PresenceLog log = new PresenceLog(4, 1);
+
+    @Test
+    public void deltaHoldsOnlyChangesSinceVersion() {
+        log.join("alice");
+        long known = log.getVersion();
+        log.join("bob");
+        log.leave("alice");
+
+        PresenceDelta delta = log.since(known);
+        assertFalse(delta.isFull());
+        assertEquals(log.getVersion(), delta.getVersion());
+        assertEquals(Collections.singletonList("bob"), names(delta.getAdded()));
+        assertEquals(Collections.singletonList("alice"), delta.getRemoved());
+    }
+
+    @Test
+    public void latestChangePerUserWins() {
+        long known = log.getVersion();
+        log.join("alice");
+        log.leave("alice");
+        log.join("alice");
+
+        PresenceDelta delta = log.since(known);
+        assertEquals(Collections.singletonList("alice"), names(delta.getAdded()));
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void currentVersionGivesEmptyDelta() {
+        log.join("alice");
+        assertTrue(log.since(log.getVersion()).isEmpty());
+    }
+
+    @Test
+    public void unknownOrEvictedVersionGivesFullList() {
+        long known = log.getVersion();
+        for (String name : Arrays.asList("a", "b", "c", "d", "e")) {
+            log.join(name);
+        }
+        assertTrue(log.since(-1).isFull());
+        PresenceDelta delta = log.since(known);
+        assertTrue(delta.isFull());
+        assertEquals(5, delta.getAdded().size());
+        assertTrue(log.since(log.getVersion() + 1).isFull());
+    }
+
+    @Test
+    public void versionFromAnotherRunGivesFullList() {
+        PresenceLog before = new PresenceLog(4, 1);
+        before.join("alice");
+        before.join("bob");
+        long known = before.getVersion();
+
+        // Nouvelle exécution : son compteur atteint puis dépasse celui de la précédente
+        PresenceLog after = new PresenceLog(4, 2);
+        after.join("carol");
+        after.join("dave");
+        after.join("erin");
+
+        PresenceDelta delta = after.since(known);
+        assertTrue(delta.isFull());
+        assertEquals(Arrays.asList("carol", "dave", "erin"), names(delta.getAdded()).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void takenNameIsRefused() {
+        User alice = log.join("alice");
+        assertNull(log.join("alice"));
+        assertFalse(log.leave(new User("alice")));
+        assertTrue(log.leave(alice));
+    }
+
+    private static List<String> names(List<User> users) {
+        return users.stream().map(User::getUsername).collect(Collectors.toList());
+    }
+}
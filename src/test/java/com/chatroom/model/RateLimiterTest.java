@@ -0,0 +1,51 @@
+package com.chatroom.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Seau à jetons de {@link RateLimiter} : rafale initiale, refus partiels, délai avant le
+ * prochain jeton, seaux indépendants par clé et limite désactivée.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class RateLimiterTest {
+    // Un jeton par seconde : aucun jeton n'est rechargé pendant le test
+    private final RateLimiter limiter = new RateLimiter(1, 3);
+
+    @Test
+    public void grantsBurstThenRefuses() {
+        assertEquals(2, limiter.tryAcquire("alice", 2));
+        assertEquals(1, limiter.tryAcquire("alice", 2));
+        assertEquals(0, limiter.tryAcquire("alice", 1));
+        assertEquals(2, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void reportsDelayUntilNextToken() {
+        assertEquals(0, limiter.getRetryAfterMillis("alice"));
+        limiter.tryAcquire("alice", 3);
+        long retryAfter = limiter.getRetryAfterMillis("alice");
+        assertTrue(retryAfter > 0 && retryAfter <= 1001);
+    }
+
+    @Test
+    public void keysHaveSeparateBuckets() {
+        assertEquals(3, limiter.tryAcquire("alice", 5));
+        assertEquals(3, limiter.tryAcquire("bob", 3));
+        limiter.remove("alice");
+        assertEquals(3, limiter.tryAcquire("alice", 3));
+    }
+
+    @Test
+    public void disabledLimiterGrantsEverything() {
+        RateLimiter disabled = new RateLimiter(0, 1);
+        assertFalse(disabled.isEnabled());
+        assertEquals(1_000, disabled.tryAcquire("alice", 1_000));
+        assertEquals(0, disabled.getRetryAfterMillis("alice"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.chatroom.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rétention de {@link MessageLog} : éviction des messages les plus anciens par nombre, par
+ * âge et par budget mémoire, et compteurs d'éviction correspondants.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class RetentionTest {
+    private static final long START = 1_000_000;
+
+    @Test
+    public void evictsOldestBeyondMaxMessages() {
+        MessageLog log = new MessageLog(new RetentionPolicy(3, 0, 0));
+        for (int i = 0; i < 5; i++) {
+            log.append(new Message("alice", "m" + i));
+        }
+        assertEquals(3, log.size());
+        assertEquals(3, log.getFirstSequence());
+        assertEquals(5, log.getLastSequence());
+        assertNull(log.get(2));
+        assertEquals("m2", log.get(3).getContent());
+        assertEquals(2, log.getEvictedByCount());
+        assertEquals(0, log.getEvictedByAge());
+        assertEquals(0, log.getEvictedByBytes());
+    }
+
+    @Test
+    public void evictsMessagesOlderThanMaxAge() {
+        MessageLog log = new MessageLog(new RetentionPolicy(0, 1_000, 0));
+        log.append(at(START, "ancien"));
+        log.append(at(START + 500, "récent"));
+        assertEquals(2, log.size());
+
+        // L'âge est mesuré par rapport au dernier message ajouté
+        log.append(at(START + 1_200, "nouveau"));
+        assertEquals(2, log.size());
+        assertEquals("récent", log.get(log.getFirstSequence()).getContent());
+        assertEquals(1, log.getEvictedByAge());
+        assertEquals(0, log.getEvictedByCount());
+    }
+
+    @Test
+    public void evictsToStayWithinByteBudget() {
+        Message sample = new Message("alice", "0123456789");
+        long size = MessageLog.estimateSize(sample);
+        MessageLog log = new MessageLog(new RetentionPolicy(0, 0, 3 * size));
+        for (int i = 0; i < 5; i++) {
+            log.append(new Message("alice", "012345678" + i));
+        }
+        assertEquals(3, log.size());
+        assertEquals(3 * size, log.getRetainedBytes());
+        assertEquals(2, log.getEvictedByBytes());
+    }
+
+    @Test
+    public void evictsBoundedBatchPerAppend() {
+        MessageLog log = new MessageLog(new RetentionPolicy(0, 1_000, 0));
+        int old = MessageLog.EVICTION_BATCH * 2;
+        for (int i = 0; i < old; i++) {
+            log.append(at(START, "ancien " + i));
+        }
+        log.append(at(START + 5_000, "nouveau"));
+        assertEquals(MessageLog.EVICTION_BATCH, log.getEvictedByAge());
+        log.append(at(START + 5_000, "suivant"));
+        assertEquals(old, log.getEvictedByAge());
+        assertEquals(2, log.size());
+    }
+
+    @Test
+    public void unlimitedPolicyKeepsEverything() {
+        MessageLog log = new MessageLog(RetentionPolicy.unlimited());
+        for (int i = 0; i < MessageLog.SEGMENT_SIZE + 10; i++) {
+            log.append(new Message("alice", "m" + i));
+        }
+        assertEquals(MessageLog.SEGMENT_SIZE + 10, log.size());
+        assertEquals(1, log.getFirstSequence());
+        assertTrue(log.getRetainedBytes() > 0);
+    }
+
+    private static Message at(long timestamp, String content) {
+        Message message = new Message("alice", content);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,72 @@
+package com.chatroom.rest;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+
+import static com.chatroom.util.Constants.Limits.MAX_IN_FLIGHT;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Contrôle d'admission sur un serveur réel : chaque requête admise libère sa place, y compris
+ * les lectures de <code>GET /chat/messages</code> reprises dans la méthode de ressource.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class AdmissionFilterTest {
+    private static final String BASE = "http://localhost:18081/";
+
+    private HttpServer server;
+
+    @Before
+    public void start() {
+        server = GrizzlyHttpServerFactory.createHttpServer(URI.create(BASE), new ChatApplication());
+    }
+
+    @After
+    public void stop() {
+        server.shutdownNow();
+    }
+
+    @Test
+    public void sequentialReadsReleaseTheirSlots() throws IOException {
+        int requests = MAX_IN_FLIGHT + 20;
+        for (int i = 0; i < requests; i++) {
+            String path = i % 3 == 0 ? "chat/messages" : i % 3 == 1 ? "chat/messages?after=0" : "chat/users";
+            assertEquals(path, 200, get(path));
+        }
+        assertEquals(0, AdmissionFilter.getInFlightCount());
+        assertEquals(0, AdmissionFilter.getRejectedCount());
+    }
+
+    @Test
+    public void failedRequestsReleaseTheirSlots() throws IOException {
+        for (int i = 0; i < MAX_IN_FLIGHT + 20; i++) {
+            assertEquals(400, get("chat/messages?after=-1"));
+        }
+        assertEquals(0, AdmissionFilter.getInFlightCount());
+    }
+
+    private static int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(BASE + path).openConnection();
+        int status = connection.getResponseCode();
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            try (InputStream in = body) {
+                while (in.read() != -1) {
+                    // Vide la réponse pour réutiliser la connexion
+                }
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,148 @@
+package com.chatroom.server;
+
+import com.chatroom.model.ChatManager;
+import com.chatroom.model.Message;
+import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.websockets.DataFrame;
+import org.glassfish.grizzly.websockets.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Une connexion WebSocket n'agit qu'au nom de l'utilisateur créé par sa trame hello :
+ * une fois celui-ci retiré par une autre voie et son nom repris, l'ancienne connexion ne
+ * peut ni publier au nom du nouvel utilisateur, ni le déconnecter en se fermant.
+ *
+ * @author ESP-DIC3
+ * @version 1.0
+ */
+public class ChatWebSocketApplicationTest {
+    private final ChatManager chatManager = ChatManager.getInstance();
+    private final String username = "ws-test-" + System.nanoTime();
+    private ChatWebSocketApplication application;
+
+    /**
+     * Connexion sans réseau qui conserve les trames envoyées
+     */
+    private static final class RecordingSocket extends ChatWebSocketApplication.ChatSocket {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        volatile boolean open = true;
+
+        RecordingSocket() {
+            super(Version.RFC6455.createHandler(false));
+        }
+
+        @Override
+        public boolean isConnected() {
+            return open;
+        }
+
+        @Override
+        public GrizzlyFuture<DataFrame> send(String data) {
+            sent.add(data);
+            return null;
+        }
+
+        @Override
+        byte[] encode(String text) {
+            return text.getBytes();
+        }
+
+        @Override
+        void sendEncoded(byte[] frame) {
+            sent.add(new String(frame));
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        String last() {
+            return sent.get(sent.size() - 1);
+        }
+    }
+
+    @Before
+    public void open() {
+        application = new ChatWebSocketApplication(chatManager);
+    }
+
+    @After
+    public void close() {
+        chatManager.removeListener(application);
+        chatManager.removeUser(username);
+    }
+
+    @Test
+    public void staleSocketCannotActForReRegisteredName() {
+        RecordingSocket stale = new RecordingSocket();
+        application.onMessage(stale, "{\"type\":\"hello\",\"username\":\"" + username + "\"}");
+        assertEquals(1, application.getSessionCount());
+
+        chatManager.removeUser(username);
+        assertEquals(0, application.getSessionCount());
+        assertTrue(chatManager.addUser(username) != null);
+
+        application.onMessage(stale, "{\"type\":\"send\",\"content\":\"intrus\"}");
+        assertTrue(stale.last().contains("\"error\""));
+        for (Message message : chatManager.getAllMessages()) {
+            assertTrue(!(username.equals(message.getSender()) && "intrus".equals(message.getContent())));
+        }
+
+        application.onClose(stale, null);
+        assertTrue(chatManager.userExists(username));
+    }
+
+    @Test
+    public void socketBoundBeforeReRegistrationCannotRemoveNewUser() {
+        RecordingSocket stale = new RecordingSocket();
+        application.onMessage(stale, "{\"type\":\"hello\",\"username\":\"" + username + "\"}");
+
+        // Retrait et réinscription sans passer par l'écouteur, comme entre deux trames
+        chatManager.removeListener(application);
+        chatManager.removeUser(username);
+        assertTrue(chatManager.addUser(username) != null);
+        chatManager.addListener(application);
+
+        application.onMessage(stale, "{\"type\":\"send\",\"content\":\"intrus\"}");
+        assertTrue(stale.last().contains("\"error\""));
+        assertEquals(0, application.getSessionCount());
+
+        application.onClose(stale, null);
+        assertTrue(chatManager.userExists(username));
+    }
+
+    @Test
+    public void closingStaleSocketKeepsNewUser() {
+        RecordingSocket stale = new RecordingSocket();
+        application.onMessage(stale, "{\"type\":\"hello\",\"username\":\"" + username + "\"}");
+
+        chatManager.removeListener(application);
+        chatManager.removeUser(username);
+        assertTrue(chatManager.addUser(username) != null);
+        chatManager.addListener(application);
+
+        // Fermeture sans trame intermédiaire : la connexion est encore associée à l'ancien utilisateur
+        application.onClose(stale, null);
+        assertTrue(chatManager.userExists(username));
+    }
+
+    @Test
+    public void removedSocketMayHelloAgain() {
+        RecordingSocket socket = new RecordingSocket();
+        application.onMessage(socket, "{\"type\":\"hello\",\"username\":\"" + username + "\"}");
+        chatManager.removeUser(username);
+
+        application.onMessage(socket, "{\"type\":\"hello\",\"username\":\"" + username + "\"}");
+        assertEquals(1, application.getSessionCount());
+        assertTrue(chatManager.userExists(username));
+    }
+}